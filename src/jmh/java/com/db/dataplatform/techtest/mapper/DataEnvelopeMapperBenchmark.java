@@ -0,0 +1,77 @@
+package com.db.dataplatform.techtest.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per data block mapping cost of DataEnvelopeMapper against the ModelMapper with field matching it replaced,
+ * on the write path (DataEnvelope to entities) and the read path (entities to DataEnvelope).
+ * Run with "gradlew jmh --args='DataEnvelopeMapperBenchmark -prof gc'" to see the allocations as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataEnvelopeMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private DataEnvelopeMapper dataEnvelopeMapper;
+    private DataEnvelope dataEnvelope;
+    private DataBodyEntity dataBodyEntity;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setFieldMatchingEnabled(true);
+        dataEnvelopeMapper = new DataEnvelopeMapper();
+
+        dataEnvelope = new DataEnvelope(new DataHeader("benchmark", BlockTypeEnum.BLOCKTYPEA),
+                new DataBody("AKCp5fU4WNWKBVvhXsbNhqk33tawri9iJUkA5o4A6YqpwvAoYjajVw8xdEw6r9796h1wEp29D"));
+        dataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(dataEnvelope);
+    }
+
+    @Benchmark
+    public DataBodyEntity writeWithModelMapper() {
+        DataHeaderEntity dataHeaderEntity = modelMapper.map(dataEnvelope.getDataHeader(), DataHeaderEntity.class);
+        DataBodyEntity mapped = modelMapper.map(dataEnvelope.getDataBody(), DataBodyEntity.class);
+        mapped.setDataHeaderEntity(dataHeaderEntity);
+        return mapped;
+    }
+
+    @Benchmark
+    public DataBodyEntity writeWithDataEnvelopeMapper() {
+        return dataEnvelopeMapper.toDataBodyEntity(dataEnvelope);
+    }
+
+    @Benchmark
+    public DataEnvelope readWithModelMapper() {
+        DataHeader dataHeader = modelMapper.map(dataBodyEntity.getDataHeaderEntity(), DataHeader.class);
+        DataBody dataBody = modelMapper.map(dataBodyEntity, DataBody.class);
+        return new DataEnvelope(dataHeader, dataBody);
+    }
+
+    @Benchmark
+    public DataEnvelope readWithDataEnvelopeMapper() {
+        return dataEnvelopeMapper.toDataEnvelope(dataBodyEntity);
+    }
+}
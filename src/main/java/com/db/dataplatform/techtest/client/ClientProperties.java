@@ -0,0 +1,37 @@
+package com.db.dataplatform.techtest.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Data server client, bound from "dataserver.client.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.client")
+@Getter
+@Setter
+public class ClientProperties {
+
+    /**
+     * Encoding of the data blocks pushed and queried
+     */
+    private WireFormat wireFormat = WireFormat.JSON;
+
+    public enum WireFormat {
+        JSON(MediaType.APPLICATION_JSON_VALUE),
+        SMILE("application/x-jackson-smile");
+
+        private final String mediaType;
+
+        WireFormat(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.db.dataplatform.techtest.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connection pool and timeouts of the shared HTTP client, bound from "dataserver.http-client.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.http-client")
+@Getter
+@Setter
+public class HttpClientProperties {
+
+    private int maxConnections = 200;
+
+    private int maxConnectionsPerRoute = 50;
+
+    private int connectTimeoutMs = 2000;
+
+    /**
+     * Longest wait for a connection from the pool when all are leased
+     */
+    private int connectionRequestTimeoutMs = 2000;
+
+    /**
+     * Socket timeout, must cover the slowest data lake request
+     */
+    private int readTimeoutMs = 10000;
+
+    /**
+     * Pooled connections idle for longer are closed by a background thread
+     */
+    private long idleEvictionSeconds = 30;
+
+    /**
+     * Pooled connections idle for longer are checked before being reused
+     */
+    private int validateAfterInactivityMs = 2000;
+}
@@ -1,36 +1,78 @@
 package com.db.dataplatform.techtest.client;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * One keep-alive, connection-pooled HTTP client shared by every RestTemplate user
+ */
 @Configuration
 @RequiredArgsConstructor
 public class RestTemplateConfiguration {
 
+    public static final String METRIC_POOL_LEASED = "dataserver.http.pool.leased";
+    public static final String METRIC_POOL_AVAILABLE = "dataserver.http.pool.available";
+    public static final String METRIC_POOL_PENDING = "dataserver.http.pool.pending";
+    public static final String METRIC_POOL_MAX = "dataserver.http.pool.max";
+
     private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpClientProperties httpClientProperties;
 
     @Bean
-    public RestTemplate createRestTemplate(MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter,
-                                           StringHttpMessageConverter stringHttpMessageConverter) {
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(httpClientProperties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(httpClientProperties.getValidateAfterInactivityMs());
 
-        RestTemplate restTemplate = restTemplateBuilder.build();
+        Gauge.builder(METRIC_POOL_LEASED, connectionManager, m -> m.getTotalStats().getLeased()).register(meterRegistry);
+        Gauge.builder(METRIC_POOL_AVAILABLE, connectionManager, m -> m.getTotalStats().getAvailable()).register(meterRegistry);
+        Gauge.builder(METRIC_POOL_PENDING, connectionManager, m -> m.getTotalStats().getPending()).register(meterRegistry);
+        Gauge.builder(METRIC_POOL_MAX, connectionManager, m -> m.getTotalStats().getMax()).register(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(httpClientProperties.getConnectTimeoutMs())
+                .setConnectionRequestTimeout(httpClientProperties.getConnectionRequestTimeoutMs())
+                .setSocketTimeout(httpClientProperties.getReadTimeoutMs())
+                .build();
 
-        CloseableHttpClient client = HttpClients.createDefault();
-        RestTemplate template= new RestTemplate();
-        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory(client));
-        template.setMessageConverters(Arrays.asList(mappingJackson2HttpMessageConverter, stringHttpMessageConverter));
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(httpClientProperties.getIdleEvictionSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate createRestTemplate(CloseableHttpClient httpClient,
+                                           MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter,
+                                           MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter,
+                                           StringHttpMessageConverter stringHttpMessageConverter) {
 
-        return restTemplate;
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .messageConverters(mappingJackson2HttpMessageConverter, smileHttpMessageConverter, stringHttpMessageConverter)
+                .build();
     }
 
 }
@@ -1,5 +1,6 @@
 package com.db.dataplatform.techtest.client.component.impl;
 
+import com.db.dataplatform.techtest.client.ClientProperties;
 import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.client.component.Client;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
@@ -32,6 +34,9 @@ public class   ClientImpl implements Client {
     public static final UriTemplate URI_GETDATA = new UriTemplate("http://localhost:8090/dataserver/data/{blockType}");
     public static final UriTemplate URI_PATCHDATA = new UriTemplate("http://localhost:8090/dataserver/update/{name}/{newBlockType}");
 
+    private final RestTemplate restTemplate;
+    private final ClientProperties clientProperties;
+
     @Override
     public void pushData(DataEnvelope dataEnvelope) {
         log.info("Pushing data {} to {}", dataEnvelope.getDataHeader().getName(), URI_PUSHDATA);
@@ -40,14 +45,14 @@ public class   ClientImpl implements Client {
         String md5hex = DigestUtils.md5Hex(dataEnvelope.getDataBody().getDataBody());
         log.debug("Client MD5: {}",md5hex);
 
+        String mediaType = clientProperties.getWireFormat().getMediaType();
         HttpHeaders headers = new HttpHeaders();
-        headers.add("Accept", "application/json");
-        headers.add("Content-type", "application/json");
+        headers.add("Accept", mediaType);
+        headers.add("Content-type", mediaType);
         headers.add("Content-MD5", md5hex);
 
         try {
             HttpEntity<DataEnvelope> entity = new HttpEntity<>(dataEnvelope, headers);
-            RestTemplate restTemplate = new RestTemplate();
             ResponseEntity<Boolean> response = restTemplate.postForEntity(URI_PUSHDATA, entity, Boolean.class);
             log.info("PushData {}: {}", dataEnvelope.getDataHeader().getName(), Boolean.TRUE.equals(response.getBody()) ? "Success" : "Failed");
         } catch (HttpClientErrorException httpClientErrorException) {
@@ -62,12 +67,14 @@ public class   ClientImpl implements Client {
         uriVariables.put("blockType", blockType);
         log.info("Querying by {}", URI_GETDATA.expand(uriVariables));
 
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Accept", clientProperties.getWireFormat().getMediaType());
+
         try {
-            RestTemplate restTemplate = new RestTemplate();
             @SuppressWarnings("rawtypes")
             ResponseEntity<List> response =
-                    restTemplate.getForEntity(URI_GETDATA.expand(uriVariables),
-                            List.class);
+                    restTemplate.exchange(URI_GETDATA.expand(uriVariables), HttpMethod.GET,
+                            new HttpEntity<>(headers), List.class);
 
             @SuppressWarnings("unchecked")
             List<DataEnvelope> dataEnvelopeList = response.getBody();
@@ -94,7 +101,6 @@ public class   ClientImpl implements Client {
         log.info("Updating by {}", URI_PATCHDATA.expand(uriVariables));
 
         try {
-            RestTemplate restTemplate = new RestTemplate();
             ResponseEntity<Boolean> response = restTemplate.getForEntity(URI_PATCHDATA.expand(uriVariables), Boolean.class);
             log.info("Update data {} to new block type {}: {}", blockName, newBlockType, Boolean.TRUE.equals(response.getBody()) ? "Success" : "Failed");
             return Boolean.TRUE.equals(response.getBody());
@@ -1,13 +1,126 @@
 package com.db.dataplatform.techtest.server;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Class for enable async call in ServerImpl.class
+ * Named, bounded thread pools for asynchronous work, one per workload so each is sized on its own.
+ * Every pool exports its active threads, pool size and queue size as gauges, the time tasks wait in the queue
+ * and run as timers, and a count of rejected tasks, all tagged with the pool name.
  */
+@Slf4j
 @Configuration
 @EnableAsync
-public class AsyncConfiguration {
+@RequiredArgsConstructor
+public class AsyncConfiguration implements AsyncConfigurer {
+
+    public static final String COMMON_EXECUTOR = "commonExecutor";
+    public static final String DATA_LAKE_EXECUTOR = "dataLakeExecutor";
+    public static final String CHANGE_FEED_EXECUTOR = "changeFeedExecutor";
+
+    public static final String METRIC_ACTIVE = "dataserver.executor.active";
+    public static final String METRIC_POOL_SIZE = "dataserver.executor.pool.size";
+    public static final String METRIC_QUEUE_SIZE = "dataserver.executor.queue.size";
+    public static final String METRIC_QUEUE_WAIT = "dataserver.executor.queue.wait";
+    public static final String METRIC_EXECUTION = "dataserver.executor.execution";
+    public static final String METRIC_REJECTED = "dataserver.executor.rejected";
+    public static final String TAG_NAME = "name";
+
+    private final AsyncProperties asyncProperties;
+
+    /**
+     * Resolved when a pool is created: an AsyncConfigurer is instantiated early, before the MeterRegistry
+     * and the beans it depends on are fully configured.
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * Pool of @Async methods without a named executor, running the task on the caller thread when full
+     */
+    @Bean(name = COMMON_EXECUTOR)
+    public ThreadPoolTaskExecutor commonExecutor() {
+        return createExecutor(COMMON_EXECUTOR, asyncProperties.getCommon(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Pool sending bulk requests to the data lake, rejecting tasks when full so the callers fail fast
+     * instead of piling up requests behind a slow data lake
+     */
+    @Bean(name = DATA_LAKE_EXECUTOR)
+    public ThreadPoolTaskExecutor dataLakeExecutor() {
+        return createExecutor(DATA_LAKE_EXECUTOR, asyncProperties.getDataLake(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Pool writing server-sent events to the subscribers of the change feed, rejecting tasks when full
+     * so the change feed disconnects the subscriber instead of queueing behind slow connections
+     */
+    @Bean(name = CHANGE_FEED_EXECUTOR)
+    public ThreadPoolTaskExecutor changeFeedExecutor() {
+        return createExecutor(CHANGE_FEED_EXECUTOR, asyncProperties.getChangeFeed(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return commonExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Async method {} failed", method.getName(), ex);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String name, AsyncProperties.Pool pool, RejectedExecutionHandler rejectionPolicy) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getObject();
+        Timer queueWait = Timer.builder(METRIC_QUEUE_WAIT).tag(TAG_NAME, name).register(meterRegistry);
+        Timer execution = Timer.builder(METRIC_EXECUTION).tag(TAG_NAME, name).register(meterRegistry);
+        Counter rejected = Counter.builder(METRIC_REJECTED).tag(TAG_NAME, name).register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) -> {
+            rejected.increment();
+            rejectionPolicy.rejectedExecution(runnable, threadPoolExecutor);
+        });
+        executor.setTaskDecorator(runnable -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                queueWait.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    runnable.run();
+                } finally {
+                    execution.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
 
+        // The pool itself is created when the bean is initialized, so the gauges look it up on every read.
+        Gauge.builder(METRIC_ACTIVE, executor, ThreadPoolTaskExecutor::getActiveCount).tag(TAG_NAME, name).register(meterRegistry);
+        Gauge.builder(METRIC_POOL_SIZE, executor, ThreadPoolTaskExecutor::getPoolSize).tag(TAG_NAME, name).register(meterRegistry);
+        Gauge.builder(METRIC_QUEUE_SIZE, executor, e -> e.getThreadPoolExecutor().getQueue().size()).tag(TAG_NAME, name).register(meterRegistry);
+        return executor;
+    }
 }
@@ -0,0 +1,56 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizing of the thread pools of AsyncConfiguration, bound from "dataserver.async.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.async")
+@Getter
+@Setter
+public class AsyncProperties {
+
+    /**
+     * Pool of @Async methods without a named executor
+     */
+    private Pool common = new Pool(2, 8, 200);
+
+    /**
+     * Pool sending bulk requests to the data lake
+     */
+    private Pool dataLake = new Pool(16, 16, 100);
+
+    /**
+     * Pool writing server-sent events to the subscribers of the change feed
+     */
+    private Pool changeFeed = new Pool(16, 16, 1_000);
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private int corePoolSize;
+
+        private int maxPoolSize;
+
+        /**
+         * Tasks waiting for a thread, further tasks are rejected
+         */
+        private int queueCapacity;
+
+        private int keepAliveSeconds = 60;
+
+        public Pool() {
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Server-sent events feed of saved and reclassified data blocks, bound from "dataserver.changefeed.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.changefeed")
+@Getter
+@Setter
+public class ChangeFeedProperties {
+
+    /**
+     * Events buffered for each subscriber, a subscriber falling further behind is disconnected
+     * and expected to resume with Last-Event-ID
+     */
+    private int bufferSize = 1_000;
+
+    /**
+     * Time a subscription is kept open for, the subscriber reconnects after it
+     */
+    private long timeoutMs = 1_800_000;
+
+    /**
+     * Last events of each block type kept to resume subscriptions from Last-Event-ID, a subscriber
+     * resuming from an older event is sent a reset event instead
+     */
+    private int historySize = 1_000;
+
+    /**
+     * Time the events of a block type are still kept after its last subscriber disconnected,
+     * so it can resume from Last-Event-ID once it reconnects
+     */
+    private long resumeWindowMs = 60_000;
+}
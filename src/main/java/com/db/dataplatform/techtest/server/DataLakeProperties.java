@@ -0,0 +1,148 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes to the Hadoop data lake, bound from "dataserver.datalake.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.datalake")
+@Getter
+@Setter
+public class DataLakeProperties {
+
+    private String bulkUri = "http://localhost:8090/hadoopserver/pushbigdata/bulk";
+
+    /**
+     * Payloads sent per bulk request, a full buffer is flushed straight away
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * Longest time a payload waits in the buffer for more payloads to join its bulk request
+     */
+    private long lingerMs = 50;
+
+    /**
+     * Longest time a bulk request may take, including its hedge, before its attempts are aborted
+     */
+    private long requestTimeoutMs = 30000;
+
+    private Hedging hedging = new Hedging();
+
+    private Outbox outbox = new Outbox();
+
+    private Concurrency concurrency = new Concurrency();
+
+    /**
+     * Speculative second attempt of bulk requests slower than usual, see HedgingDataLakeClient
+     */
+    @Getter
+    @Setter
+    public static class Hedging {
+
+        private boolean enabled = true;
+
+        /**
+         * Latency percentile of recent requests after which a request is hedged
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Number of recent request latencies the percentile is calculated from
+         */
+        private int windowSize = 1000;
+
+        /**
+         * Requests completed before hedging starts, until then the percentile is not meaningful
+         */
+        private int minSamples = 20;
+
+        /**
+         * Hedges allowed per request, e.g. 0.1 allows one hedge for every ten requests
+         */
+        private double maxHedgeRatio = 0.1;
+
+        /**
+         * Hedges in flight at the same time
+         */
+        private int maxConcurrentHedges = 4;
+    }
+
+    /**
+     * Delivery of the DATA_LAKE_OUTBOX table, see ScheduledDataLakeOutboxRelay
+     */
+    @Getter
+    @Setter
+    public static class Outbox {
+
+        private boolean enabled = true;
+
+        /**
+         * Payloads read from the outbox per round
+         */
+        private int batchSize = 500;
+
+        private long pollIntervalMs = 500;
+
+        /**
+         * Rounds per poll while full batches are pending, bounding the time one poll can take
+         */
+        private int maxBatchesPerPoll = 10;
+
+        /**
+         * Delay before the first retry of a payload, doubled on each further failure
+         */
+        private long initialBackoffMs = 1000;
+
+        private long maxBackoffMs = 60000;
+
+        /**
+         * Consecutive rounds delivering nothing after which deliveries are suspended
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * Time deliveries stay suspended before a single payload is tried again
+         */
+        private long openDurationMs = 30000;
+
+        /**
+         * Time delivered payloads are kept in the outbox
+         */
+        private long retentionMinutes = 60;
+    }
+
+    /**
+     * Adaptive limit of bulk requests in flight, see AdaptiveConcurrencyLimiter.
+     * The maximum is capped by the size of the dataLakeExecutor pool.
+     */
+    @Getter
+    @Setter
+    public static class Concurrency {
+
+        private int initialLimit = 4;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 16;
+
+        /**
+         * Requests slower than this count as overload, the data lake times out after 3 seconds
+         */
+        private long latencyThresholdMs = 3000;
+
+        /**
+         * Factor applied to the limit on overload
+         */
+        private double backoffRatio = 0.75;
+
+        /**
+         * Longest wait of a bulk request for a slot before its payloads are failed
+         */
+        private long queueTimeoutMs = 5000;
+    }
+}
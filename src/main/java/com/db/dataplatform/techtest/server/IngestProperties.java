@@ -0,0 +1,79 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning of the ingest endpoints, bound from "dataserver.ingest.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.ingest")
+@Getter
+@Setter
+public class IngestProperties {
+
+    /**
+     * Number of streamed data blocks persisted per transaction
+     */
+    private int streamChunkSize = 500;
+
+    private Journal journal = new Journal();
+
+    private DuplicateDetection duplicateDetection = new DuplicateDetection();
+
+    /**
+     * Write-ahead journal for pushdata, see MappedIngestJournal
+     */
+    @Getter
+    @Setter
+    public static class Journal {
+
+        /**
+         * Acknowledge pushed data blocks once journaled instead of once committed to the DB.
+         * The name of a data block is checked against the DB before it is journaled, but a data block can still
+         * be rejected by the DB once drained, e.g. when its name was pushed twice before draining. Such data blocks
+         * have been acknowledged already, they are written to deadLetterPath and counted in
+         * dataserver.ingest.journal.rejected instead.
+         */
+        private boolean enabled = false;
+
+        private String path = "journal/ingest.journal";
+
+        /**
+         * File receiving the journaled data blocks rejected by the DB, one Json line each
+         */
+        private String deadLetterPath = "journal/ingest.rejected.ndjson";
+
+        /**
+         * Size of the memory-mapped journal file, pushes fall back to a direct DB write when it is full
+         */
+        private int sizeBytes = 64 * 1024 * 1024;
+
+        /**
+         * Maximum number of journaled data blocks written to the DB per transaction
+         */
+        private int drainBatchSize = 500;
+
+        private long drainIntervalMs = 100;
+    }
+
+    /**
+     * Sizing of the Bloom filter in front of the set of pushed data blocks, see BloomDuplicateDetector
+     */
+    @Getter
+    @Setter
+    public static class DuplicateDetection {
+
+        private int expectedInsertions = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * Number of recently pushed data blocks kept to confirm a possible match of the Bloom filter,
+         * the others are confirmed by a lookup in the DB
+         */
+        private int maxCachedEntries = 100_000;
+    }
+}
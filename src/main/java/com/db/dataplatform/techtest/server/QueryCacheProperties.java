@@ -0,0 +1,29 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of block type query results, bound from "dataserver.query-cache.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.query-cache")
+@Getter
+@Setter
+public class QueryCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Time a cached result is served for after it was loaded, writes of the block type invalidate it earlier
+     */
+    private long ttlMs = 5_000;
+
+    /**
+     * Maximum number of data blocks held over all cached results, the oldest results are evicted first
+     * and a result larger than this is not cached at all
+     */
+    private int maxDataEnvelopes = 100_000;
+}
@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Class for enable scheduled tasks, e.g. ScheduledDataLakeOutboxRelay
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+}
@@ -0,0 +1,49 @@
+package com.db.dataplatform.techtest.server;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Storage engine of the data blocks, bound from "dataserver.storage.*"
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.storage")
+@Getter
+@Setter
+public class StorageProperties {
+
+    /**
+     * Engine storing DATA_STORE and DATA_HEADER, read once at startup
+     */
+    private Engine engine = Engine.JPA;
+
+    private Log log = new Log();
+
+    public enum Engine {
+        /**
+         * Spring Data JPA over the configured data source, see JpaStorageEngine
+         */
+        JPA,
+        /**
+         * Embedded append-only log with in-memory indexes, see LogStorageEngine
+         */
+        LOG
+    }
+
+    /**
+     * Append-only log of the LOG engine
+     */
+    @Getter
+    @Setter
+    public static class Log {
+
+        private String path = "storage/datastore.log";
+
+        /**
+         * Force each write to disk before it returns, otherwise a crash may lose the latest writes
+         */
+        private boolean fsync = true;
+    }
+}
@@ -0,0 +1,23 @@
+package com.db.dataplatform.techtest.server.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AdmissionControlConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionControlProperties properties,
+                                                                               ServerProperties serverProperties,
+                                                                               MeterRegistry meterRegistry) {
+        properties.checkFitsThreadPool(serverProperties.getTomcat().getThreads().getMax());
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(properties, meterRegistry));
+        registration.setUrlPatterns(properties.getPaths());
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
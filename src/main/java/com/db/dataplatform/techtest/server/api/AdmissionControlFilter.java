@@ -0,0 +1,65 @@
+package com.db.dataplatform.techtest.server.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limit the requests processed concurrently by each ingest endpoint, answering 429 with Retry-After
+ * when the endpoint and its wait queue are full, so overload is shed before it takes threads and connections.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionControlProperties properties;
+    private final Map<String, AdmissionLimiter> limiters = new HashMap<>();
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (String path : properties.getPaths()) {
+            limiters.put(path, new AdmissionLimiter(path, properties.getMaxInFlight(), properties.getMaxQueued(),
+                    properties.getQueueTimeoutMs(), meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdmissionLimiter limiter = limiters.get(request.getRequestURI().substring(request.getContextPath().length()));
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            log.warn("Rejecting {} {}: {} in flight, {} queued", request.getMethod(), request.getRequestURI(),
+                    limiter.getInFlight(), limiter.getQueued());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()));
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+}
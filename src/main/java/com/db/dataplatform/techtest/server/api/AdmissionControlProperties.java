@@ -0,0 +1,70 @@
+package com.db.dataplatform.techtest.server.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Admission control of the ingest endpoints, bound from "dataserver.admission.*". Admitted and queued requests
+ * both hold a servlet thread, so all endpoints together must hold fewer than the server has, otherwise the
+ * thread pool runs out before any request is rejected.
+ */
+@Component
+@ConfigurationProperties(prefix = "dataserver.admission")
+@Getter
+@Setter
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Endpoints limited, each one with its own in-flight limit and wait queue
+     */
+    private List<String> paths = new ArrayList<>(Arrays.asList(
+            "/dataserver/pushdata", "/dataserver/pushdata/batch", "/dataserver/pushdata/stream"));
+
+    /**
+     * Requests processed concurrently per endpoint
+     */
+    private int maxInFlight = 32;
+
+    /**
+     * Requests waiting for an in-flight slot per endpoint, further requests are rejected straight away
+     */
+    private int maxQueued = 16;
+
+    /**
+     * Longest wait for an in-flight slot before the request is rejected
+     */
+    private long queueTimeoutMs = 500;
+
+    /**
+     * Value of the Retry-After header of rejected requests
+     */
+    private int retryAfterSeconds = 1;
+
+    /**
+     * @return Servlet threads the limited endpoints hold at most, admitted and queued requests together
+     */
+    public int getMaxThreadsHeld() {
+        return paths.size() * (maxInFlight + maxQueued);
+    }
+
+    /**
+     * Check the limited endpoints leave servlet threads to the other requests and to the rejections
+     * @param maxThreads Servlet threads of the server
+     * @throws IllegalStateException if the limited endpoints can hold every servlet thread
+     */
+    public void checkFitsThreadPool(int maxThreads) {
+        if (enabled && getMaxThreadsHeld() >= maxThreads) {
+            throw new IllegalStateException("Admission control holds up to " + getMaxThreadsHeld() + " servlet threads on "
+                    + paths.size() + " endpoints, lower dataserver.admission.max-in-flight or max-queued below "
+                    + "server.tomcat.threads.max of " + maxThreads);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.db.dataplatform.techtest.server.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded in-flight limit with a bounded wait queue for one endpoint
+ */
+public class AdmissionLimiter {
+
+    public static final String METRIC_IN_FLIGHT = "dataserver.admission.in.flight";
+    public static final String METRIC_QUEUED = "dataserver.admission.queued";
+    public static final String METRIC_ADMITTED = "dataserver.admission.admitted";
+    public static final String METRIC_REJECTED = "dataserver.admission.rejected";
+    public static final String TAG_ENDPOINT = "endpoint";
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public AdmissionLimiter(String endpoint, int maxInFlight, int maxQueued, long queueTimeoutMs, MeterRegistry meterRegistry) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.permits = new Semaphore(maxInFlight, true);
+
+        Gauge.builder(METRIC_IN_FLIGHT, this, AdmissionLimiter::getInFlight).tag(TAG_ENDPOINT, endpoint).register(meterRegistry);
+        Gauge.builder(METRIC_QUEUED, this, AdmissionLimiter::getQueued).tag(TAG_ENDPOINT, endpoint).register(meterRegistry);
+        this.admitted = Counter.builder(METRIC_ADMITTED).tag(TAG_ENDPOINT, endpoint).register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_REJECTED).tag(TAG_ENDPOINT, endpoint).register(meterRegistry);
+    }
+
+    /**
+     * Take an in-flight slot, waiting in the queue if all are taken and the queue is not full
+     * @return true if admitted, the caller must then call release; false if rejected
+     * @throws InterruptedException if interrupted while queued
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                rejected.increment();
+                return false;
+            }
+            try {
+                if (!permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    rejected.increment();
+                    return false;
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+        admitted.increment();
+        return true;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+}
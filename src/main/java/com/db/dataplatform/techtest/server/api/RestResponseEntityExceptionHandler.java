@@ -1,5 +1,8 @@
 package com.db.dataplatform.techtest.server.api;
 
+import com.db.dataplatform.techtest.server.exception.MalformedDataStreamException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,4 +26,31 @@ public class RestResponseEntityExceptionHandler
         return handleExceptionInternal(ex, bodyOfResponse,
                 new HttpHeaders(), HttpStatus.CONFLICT, request);
     }
+
+    @ExceptionHandler(value = {DataIntegrityViolationException.class})
+    protected ResponseEntity<Object> handleDataIntegrityViolation(Exception ex, WebRequest request) {
+
+        String bodyOfResponse = "Data block conflicts with a stored data block";
+
+        return handleExceptionInternal(ex, bodyOfResponse,
+                new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(value = {JsonProcessingException.class})
+    protected ResponseEntity<Object> handleMalformedJson(Exception ex, WebRequest request) {
+
+        String bodyOfResponse = "Request body is malformed";
+
+        return handleExceptionInternal(ex, bodyOfResponse,
+                new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    @ExceptionHandler(value = {MalformedDataStreamException.class})
+    protected ResponseEntity<Object> handleMalformedStream(Exception ex, WebRequest request) {
+
+        String bodyOfResponse = "Data stream is malformed, data blocks before the malformed record have been saved. " + ex.getMessage();
+
+        return handleExceptionInternal(ex, bodyOfResponse,
+                new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
 }
@@ -0,0 +1,20 @@
+package com.db.dataplatform.techtest.server.api;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Smile, a binary encoding of the Json data model, as an alternative wire format of the data blocks.
+ * It is configured like the Json ObjectMapper, so both formats carry the same fields.
+ */
+@Configuration
+public class SmileConfiguration {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(jackson2ObjectMapperBuilder.factory(new SmileFactory()).build());
+    }
+}
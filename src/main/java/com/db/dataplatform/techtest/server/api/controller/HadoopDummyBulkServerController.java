@@ -0,0 +1,45 @@
+package com.db.dataplatform.techtest.server.api.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk counterpart of HadoopDummyServerController, one simulated write for the whole batch.
+ * This code does not require any test coverage.
+ */
+
+@Slf4j
+@Validated
+@Controller
+@RequestMapping("/hadoopserver")
+public class HadoopDummyBulkServerController {
+
+    @PostMapping(value = "/pushbigdata/bulk")
+    public ResponseEntity<HttpStatus> pushBigDataBulk(@RequestBody @NotEmpty List<String> payloads) throws InterruptedException {
+
+        log.info("Saving {} payloads to Hadoop file system", payloads.size());
+        Random random = new Random();
+        int workDuration = random.ints(2000, 4000).findAny().getAsInt();
+
+        // Simulate long running work.
+        Thread.sleep(workDuration);
+
+        if(workDuration > 3000) {
+            log.info("Hadoop back end has timed out");
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+
+        log.info("Saving to Hadoop file system - finished");
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,24 +1,46 @@
 package com.db.dataplatform.techtest.server.api.controller;
 
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateRequest;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.StreamIngestResult;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StreamIngester;
+import com.db.dataplatform.techtest.server.exception.MalformedDataStreamException;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 
 @Slf4j
 @Controller
@@ -27,49 +49,197 @@ import java.util.concurrent.CompletableFuture;
 @Validated
 public class ServerController {
 
+    public static final int MAX_BATCH_SIZE = 5000;
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    /**
+     * Binary Json of the data blocks, negotiated with Content-Type and Accept on the push and query endpoints
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     private final Server server;
+    private final StreamIngester streamIngester;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Save the data block in the DB and push data to the bank’s Hadoop data lake if checksum is valid
+     * Save the data block in the DB if checksum is valid, queueing it for the bank’s Hadoop data lake in the same transaction
      * @param dataEnvelope Data block
      * @param md5  Checksum value in Http Header "Content-MD5"
      * @return HTTP Status 200 with checksum result in the body
      * @throws IOException
      * @throws NoSuchAlgorithmException
      */
-    @PostMapping(value = "/pushdata", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(value = "/pushdata", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
     public ResponseEntity<Boolean> pushData(@Valid @RequestBody DataEnvelope dataEnvelope, @RequestHeader("Content-MD5") String md5) throws IOException, NoSuchAlgorithmException {
         log.info("Data envelope received: {}", dataEnvelope.getDataHeader().getName());
         boolean checksumPass = server.saveDataEnvelope(dataEnvelope, md5);
         log.info("Data envelope persisted. Attribute name: {}", dataEnvelope.getDataHeader().getName());
+        return ResponseEntity.ok(checksumPass);
+    }
 
-        if (checksumPass) {
-            CompletableFuture<HttpStatus> completableFuture = server.saveDataLake(dataEnvelope.getDataBody().getDataBody());
-            completableFuture.thenAccept(httpStatus -> log.info("DataLake finished with HTTP status Code: {}", httpStatus))
-                    .exceptionally(ex -> {
-                        if (ex.getCause() instanceof HttpServerErrorException) {
-                            log.error("DataLake exception with Http status Code: {}", ((HttpServerErrorException)ex.getCause()).getStatusCode());
-                        }
-                        else {
-                            log.error("DataLake exception: {}", ex.getMessage());
-                        }
-                        return null;
-                    });
+    /**
+     * Save the data blocks with a valid checksum in the DB in one transaction, queueing them for the data lake.
+     * Data blocks whose name is already stored, or repeated in the batch, are reported with a name conflict
+     * and not saved, the others are.
+     * @param envelopes Data blocks, each with its own MD5 checksum
+     * @return HTTP Status 200 with the checksum and name conflict result of each data block, in request order
+     */
+    @PostMapping(value = "/pushdata/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<PushDataResult>> pushDataBatch(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid ChecksummedDataEnvelope> envelopes) {
+        log.info("Data envelope batch received: {} data blocks", envelopes.size());
+        List<PushDataResult> results = server.saveDataEnvelopes(envelopes);
+        return ResponseEntity.ok(results);
+    }
 
-        }
-        return ResponseEntity.ok(checksumPass);
+    /**
+     * Save a stream of newline-delimited data blocks in the DB, persisting them in chunks as they are read
+     * @param inputStream Request body, one ChecksummedDataEnvelope per line
+     * @return HTTP Status 200 with the number of data blocks received, persisted and rejected
+     * @throws MalformedDataStreamException if the stream contains malformed JSON, answered with 400 once
+     *                                      the data blocks before the malformed record have been saved
+     * @throws IOException if the stream cannot be read
+     */
+    @PostMapping(value = "/pushdata/stream", consumes = APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamIngestResult> pushDataStream(InputStream inputStream) throws IOException {
+        log.info("Data envelope stream received");
+        StreamIngestResult result = streamIngester.ingest(inputStream);
+        return ResponseEntity.ok(result);
     }
 
     /**
      * Get the data blocks if block type is the same as given one
      * @param blockType BlockTypeEnum
-     * @return List of DataEnvelope in Json
+     * @param webRequest Request, answered with 304 without querying the data blocks if its If-None-Match
+     *                   header holds the current ETag of the block type
+     * @return List of DataEnvelope in Json or Smile with its weak ETag, varying by the Accept header
      */
-    @GetMapping(value = "/data/{blockType}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<DataEnvelope>> queryData(@PathVariable @NotNull String blockType) {
+    @GetMapping(value = "/data/{blockType}", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<DataEnvelope>> queryData(@PathVariable @NotNull String blockType, WebRequest webRequest) {
         log.info("Querying data with blockType="+blockType);
+        String eTag = server.getDataEnvelopeETag(blockType);
+        if (eTag == null) {
+            return new ResponseEntity<>(server.getDataEnvelope(blockType), HttpStatus.OK);
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
         List<DataEnvelope> result = server.getDataEnvelope(blockType);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(result);
+    }
+
+    /**
+     * Stream the data blocks if block type is the same as given one, one Json document per line,
+     * writing each data block as soon as it is read from the DB
+     * @param blockType BlockTypeEnum
+     * @return HTTP Status 200 with newline-delimited DataEnvelope
+     */
+    @GetMapping(value = "/data/{blockType}", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamData(@PathVariable @NotNull String blockType) {
+        log.info("Streaming data with blockType={}", blockType);
+        ObjectWriter writer = objectMapper.writerFor(DataEnvelope.class);
+
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            try {
+                server.streamDataEnvelope(blockType, dataEnvelope -> {
+                    try {
+                        outputStream.write(writer.writeValueAsBytes(dataEnvelope));
+                        outputStream.write('\n');
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                            outputStream.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+            log.info("Streamed {} data blocks with blockType={}", written[0], blockType);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    /**
+     * Get one page of the data blocks of the given block type, in the order they were stored
+     * @param blockType BlockTypeEnum
+     * @param limit Maximum number of data blocks in the page
+     * @param after Cursor returned with the previous page, absent for the first page
+     * @return Page of DataEnvelope with the cursor of the next page in Json
+     */
+    @GetMapping(value = "/data/{blockType}", params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<DataEnvelopePage> queryDataPage(@PathVariable @NotNull String blockType,
+                                                          @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+                                                          @RequestParam(required = false) Long after) {
+        log.info("Querying data page with blockType={}, limit={}, after={}", blockType, limit, after);
+        DataEnvelopePage result = server.getDataEnvelopePage(blockType, limit, after);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get one page of the data blocks stored in a time range, optionally of one block type,
+     * in the order of their creation time
+     * @param from Inclusive start of the time range, ISO-8601 instant
+     * @param to Exclusive end of the time range, ISO-8601 instant
+     * @param blockType BlockTypeEnum, absent for all block types
+     * @param limit Maximum number of data blocks in the page
+     * @param afterTimestamp Cursor timestamp returned with the previous page, absent for the first page
+     * @param after Cursor returned with the previous page, absent for the first page
+     * @return Page of DataEnvelope with both cursors of the next page in Json,
+     *         HTTP Status 400 if only one of the cursors is given
+     */
+    @GetMapping(value = "/data", params = {"from", "to"}, produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<DataEnvelopePage> queryDataByTime(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                            @RequestParam(required = false) BlockTypeEnum blockType,
+                                                            @RequestParam(defaultValue = "" + MAX_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant afterTimestamp,
+                                                            @RequestParam(required = false) Long after) {
+        log.info("Querying data page with from={}, to={}, blockType={}, limit={}, afterTimestamp={}, after={}", from, to, blockType, limit, afterTimestamp, after);
+        if ((afterTimestamp == null) != (after == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        DataEnvelopePage result = server.getDataEnvelopePage(from, to, blockType, limit, afterTimestamp, after);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get the number, size and ingest rate of the data blocks of each block type, kept in memory
+     * @return HTTP status 200 with the statistics by block type
+     */
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<BlockTypeEnum, BlockTypeStats>> getStats() {
+        return ResponseEntity.ok(server.getBlockTypeStats());
+    }
+
+    /**
+     * Subscribe to the data blocks saved with or updated to the block type as server-sent events, instead of polling.
+     * Events carry ids in the order they were published, a reset event tells a client resuming from an event
+     * no longer kept to query the block type again.
+     * @param blockType BlockTypeEnum
+     * @param lastEventId Id of the last event received, sent by the client when reconnecting to resume after it
+     * @return HTTP Status 200 with a stream of DataEnvelope events in Json
+     */
+    @GetMapping(value = "/subscribe/{blockType}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable BlockTypeEnum blockType,
+                                @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("Subscribing to blockType={}, Last-Event-ID={}", blockType, lastEventId);
+        return server.subscribeDataEnvelope(blockType, lastEventId);
+    }
+
+    /**
+     * Move many data blocks to a new BlockTypeEnum with set-based updates, selected either by name
+     * or by block type and creation time
+     * @param request Selection of the data blocks and their new block type
+     * @return HTTP status 200 with the number of data blocks updated
+     */
+    @PostMapping(value = "/update/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkUpdateResult> updateDataBulk(@Valid @RequestBody BulkUpdateRequest request) {
+        log.info("Bulk updating data blocks to new block type {}", request.getNewBlockType());
+        BulkUpdateResult result = server.updateDataBlockTypes(request);
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Stored data blocks of a block type and how fast they arrive.
+ */
+@JsonSerialize(as = BlockTypeStats.class)
+@JsonDeserialize(as = BlockTypeStats.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BlockTypeStats {
+
+    private long count;
+
+    /**
+     * Total length of the stored data bodies, in characters as DATA_BODY is sized
+     */
+    private long dataBodyLength;
+
+    /**
+     * Data blocks stored per second, averaged over each window, e.g. "1m"
+     */
+    private Map<String, Double> ingestRatePerSecond;
+}
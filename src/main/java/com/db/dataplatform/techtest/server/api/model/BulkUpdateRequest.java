@@ -0,0 +1,50 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Data blocks to move to a new block type, selected either by name or by block type and creation time.
+ */
+@JsonSerialize(as = BulkUpdateRequest.class)
+@JsonDeserialize(as = BulkUpdateRequest.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BulkUpdateRequest {
+
+    public static final int MAX_NAMES = 100_000;
+
+    @Size(max = MAX_NAMES)
+    private List<@NotNull @Size(max = 30) String> names;
+
+    /**
+     * Select all data blocks of this block type, instead of names
+     */
+    private BlockTypeEnum blockType;
+
+    /**
+     * With blockType, only select data blocks created before this time. Defaults to the time of the request.
+     */
+    private Instant createdBefore;
+
+    @NotNull
+    private BlockTypeEnum newBlockType;
+
+    @JsonIgnore
+    @AssertTrue(message = "either names or blockType must be given")
+    public boolean isSelectionValid() {
+        return (names == null) != (blockType == null) && (createdBefore == null || blockType != null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Outcome of a bulk block type update.
+ */
+@JsonSerialize(as = BulkUpdateResult.class)
+@JsonDeserialize(as = BulkUpdateResult.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BulkUpdateResult {
+
+    /**
+     * Number of data blocks moved to the new block type, those already of the new block type are not counted
+     */
+    private int updated;
+
+    /**
+     * Number of data blocks moved, by their previous block type
+     */
+    private Map<BlockTypeEnum, Integer> updatedByPreviousBlockType;
+
+    /**
+     * Number of chunks of at most BULK_UPDATE_CHUNK_SIZE data blocks updated
+     */
+    private int chunks;
+}
@@ -0,0 +1,30 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A data block together with the MD5 checksum the client calculated for its body,
+ * used where several data blocks are pushed in a single request.
+ */
+@JsonSerialize(as = ChecksummedDataEnvelope.class)
+@JsonDeserialize(as = ChecksummedDataEnvelope.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class ChecksummedDataEnvelope {
+
+    @NotNull
+    @Valid
+    private DataEnvelope dataEnvelope;
+
+    @NotBlank
+    private String checksum;
+}
@@ -1,5 +1,6 @@
 package com.db.dataplatform.techtest.server.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
@@ -9,7 +10,7 @@ import lombok.NoArgsConstructor;
 import javax.validation.constraints.NotNull;
 
 @JsonSerialize(as = DataBody.class)
-@JsonDeserialize(as = DataBody.class)
+@JsonDeserialize(using = DataBodyDeserializer.class)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -18,4 +19,13 @@ public class DataBody {
     @NotNull
     private String dataBody;
 
+    /**
+     * MD5 digest of the data body, calculated while deserializing. Null if built in code.
+     */
+    @JsonIgnore
+    private byte[] md5Digest;
+
+    public DataBody(String dataBody) {
+        this.dataBody = dataBody;
+    }
 }
@@ -0,0 +1,51 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.db.dataplatform.techtest.server.checksum.Md5Checksum;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserialize DataBody and calculate the MD5 digest of the data body from the parser's text buffer.
+ * The digest is not computed over the request bytes as they are read: Jackson only hands out the data body
+ * once it has decoded it, escapes included, so the characters are encoded to UTF-8 again through a small buffer
+ * for the digest. That is a second pass over the data body, and the String of the data body is still
+ * materialized; what it saves is the byte[] of the whole data body the checksum check used to allocate.
+ */
+public class DataBodyDeserializer extends StdDeserializer<DataBody> {
+
+    public static final String DATA_BODY_FIELD = "dataBody";
+
+    public DataBodyDeserializer() {
+        super(DataBody.class);
+    }
+
+    @Override
+    public DataBody deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        String dataBody = null;
+        byte[] md5Digest = null;
+
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (DATA_BODY_FIELD.equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                md5Digest = Md5Checksum.digest(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                dataBody = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            return (DataBody) context.handleUnexpectedToken(DataBody.class, parser);
+        }
+        return new DataBody(dataBody, md5Digest);
+    }
+}
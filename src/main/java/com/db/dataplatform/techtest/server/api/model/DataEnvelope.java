@@ -1,5 +1,6 @@
 package com.db.dataplatform.techtest.server.api.model;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
@@ -22,4 +23,13 @@ public class DataEnvelope {
 
     @NotNull
     private DataBody dataBody;
+
+    /**
+     * @param name Data block name
+     * @param blockType Block type
+     * @param dataBody Data body
+     */
+    public DataEnvelope(String name, BlockTypeEnum blockType, String dataBody) {
+        this(new DataHeader(name, blockType), new DataBody(dataBody));
+    }
 }
@@ -0,0 +1,36 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@JsonSerialize(as = DataEnvelopePage.class)
+@JsonDeserialize(as = DataEnvelopePage.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class DataEnvelopePage {
+
+    private List<DataEnvelope> dataEnvelopes;
+
+    /**
+     * Value of "after" for the next page, null on the last page
+     */
+    private Long nextCursor;
+
+    /**
+     * Value of "afterTimestamp" for the next page of a time range, null on the last page and on pages of a block type
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant nextCursorTimestamp;
+
+    public DataEnvelopePage(List<DataEnvelope> dataEnvelopes, Long nextCursor) {
+        this(dataEnvelopes, nextCursor, null);
+    }
+}
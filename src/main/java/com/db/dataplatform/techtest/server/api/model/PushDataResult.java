@@ -0,0 +1,27 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of pushing a single data block as part of a batch.
+ */
+@JsonSerialize(as = PushDataResult.class)
+@JsonDeserialize(as = PushDataResult.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class PushDataResult {
+
+    private String name;
+
+    private boolean checksumPass;
+
+    /**
+     * Another data block with the same name is stored, or comes earlier in the batch, so this one was not saved
+     */
+    private boolean nameConflict;
+}
@@ -0,0 +1,24 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a streamed push of data blocks.
+ */
+@JsonSerialize(as = StreamIngestResult.class)
+@JsonDeserialize(as = StreamIngestResult.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class StreamIngestResult {
+
+    private long received;
+
+    private long persisted;
+
+    private long rejected;
+}
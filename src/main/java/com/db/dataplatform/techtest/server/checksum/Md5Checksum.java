@@ -0,0 +1,114 @@
+package com.db.dataplatform.techtest.server.checksum;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * MD5 over the UTF-8 encoding of text, computed by encoding the characters through a small
+ * per-thread buffer instead of materializing the whole byte[] of the text.
+ */
+public final class Md5Checksum {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(DigestUtils::getMd5Digest);
+    private static final ThreadLocal<CharsetEncoder> ENCODER = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    private Md5Checksum() {
+    }
+
+    /**
+     * Calculate the MD5 digest of a range of characters
+     * @param chars Character buffer, e.g. the text buffer of a JSON parser
+     * @param offset Offset of the first character
+     * @param length Number of characters
+     * @return MD5 digest of the UTF-8 encoded characters
+     */
+    public static byte[] digest(char[] chars, int offset, int length) {
+        return digest(CharBuffer.wrap(chars, offset, length));
+    }
+
+    /**
+     * Calculate the MD5 digest of a text, same as DigestUtils.md5(text)
+     * @param text Text
+     * @return MD5 digest of the UTF-8 encoded text
+     */
+    public static byte[] digest(CharSequence text) {
+        return digest(CharBuffer.wrap(text));
+    }
+
+    private static byte[] digest(CharBuffer chars) {
+        MessageDigest messageDigest = MESSAGE_DIGEST.get();
+        messageDigest.reset();
+        CharsetEncoder encoder = ENCODER.get();
+        encoder.reset();
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+
+        CoderResult coderResult;
+        do {
+            coderResult = encoder.encode(chars, buffer, true);
+            update(messageDigest, buffer);
+        } while (coderResult.isOverflow());
+        do {
+            coderResult = encoder.flush(buffer);
+            update(messageDigest, buffer);
+        } while (coderResult.isOverflow());
+
+        return messageDigest.digest();
+    }
+
+    private static void update(MessageDigest messageDigest, ByteBuffer buffer) {
+        buffer.flip();
+        messageDigest.update(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Compare a digest with a hex encoded checksum without allocating
+     * @param digest MD5 digest
+     * @param hex Hex encoded checksum, case insensitive
+     * @return true if both represent the same value
+     */
+    public static boolean matchesHex(byte[] digest, String hex) {
+        if (hex == null || hex.length() != digest.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < digest.length; i++) {
+            int high = hexDigit(hex.charAt(2 * i));
+            int low = hexDigit(hex.charAt(2 * i + 1));
+            if (high < 0 || low < 0 || ((high << 4) | low) != (digest[i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Value of an ASCII hex digit, unlike Character.digit which accepts any Unicode digit, e.g. fullwidth ones
+     * @param c Character
+     * @return Value 0-15, -1 if the character is not in [0-9a-fA-F]
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
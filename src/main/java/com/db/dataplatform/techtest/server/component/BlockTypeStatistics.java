@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+import java.util.Map;
+
+public interface BlockTypeStatistics {
+    void recordSaved(BlockTypeEnum blockType, long dataBodyLength);
+    void recordMoved(BlockTypeEnum blockType, BlockTypeEnum newBlockType, long count, long dataBodyLength);
+    void recordMoved(BlockTypeEnum blockType, BlockTypeEnum newBlockType, long count);
+    Map<BlockTypeEnum, BlockTypeStats> getStats();
+}
@@ -0,0 +1,12 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface ChangeFeed {
+    SseEmitter subscribe(BlockTypeEnum blockType, Long lastEventId);
+    boolean hasSubscribers(BlockTypeEnum blockType);
+    void publishSaved(DataEnvelope envelope);
+    void publishReclassified(DataEnvelope envelope);
+}
@@ -0,0 +1,9 @@
+package com.db.dataplatform.techtest.server.component;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+public interface DataLakeClient {
+    HttpStatus push(List<String> payloads);
+}
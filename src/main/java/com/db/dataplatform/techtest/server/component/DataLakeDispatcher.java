@@ -0,0 +1,9 @@
+package com.db.dataplatform.techtest.server.component;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface DataLakeDispatcher {
+    CompletableFuture<HttpStatus> submit(String payload);
+}
@@ -0,0 +1,5 @@
+package com.db.dataplatform.techtest.server.component;
+
+public interface DataLakeOutboxRelay {
+    int relay();
+}
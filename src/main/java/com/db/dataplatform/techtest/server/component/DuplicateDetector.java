@@ -0,0 +1,6 @@
+package com.db.dataplatform.techtest.server.component;
+
+public interface DuplicateDetector {
+    boolean isDuplicate(String name, byte[] md5Digest);
+    void record(String name, byte[] md5Digest);
+}
@@ -0,0 +1,7 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+
+public interface IngestDeadLetters {
+    void reject(DataEnvelope envelope, String reason);
+}
@@ -0,0 +1,12 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface IngestJournal {
+    boolean isEnabled();
+    void start(Consumer<List<DataEnvelope>> sink);
+    boolean append(DataEnvelope envelope);
+}
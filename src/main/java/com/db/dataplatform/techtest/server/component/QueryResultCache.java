@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+import java.util.List;
+import java.util.function.Function;
+
+public interface QueryResultCache {
+    List<DataEnvelope> get(BlockTypeEnum blockType, Function<BlockTypeEnum, List<DataEnvelope>> loader);
+    void invalidate(BlockTypeEnum blockType);
+    long getVersion(BlockTypeEnum blockType);
+}
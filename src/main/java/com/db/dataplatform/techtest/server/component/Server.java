@@ -1,16 +1,32 @@
 package com.db.dataplatform.techtest.server.component;
 
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateRequest;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
-import org.springframework.http.HttpStatus;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface Server {
     boolean saveDataEnvelope(DataEnvelope envelope, String checksum) throws IOException, NoSuchAlgorithmException;
+    List<PushDataResult> saveDataEnvelopes(List<ChecksummedDataEnvelope> envelopes);
     List<DataEnvelope> getDataEnvelope(String blocktype);
+    String getDataEnvelopeETag(String blocktype);
+    DataEnvelopePage getDataEnvelopePage(String blocktype, int limit, Long after);
+    DataEnvelopePage getDataEnvelopePage(Instant from, Instant to, BlockTypeEnum blockType, int limit, Instant afterTimestamp, Long after);
+    void streamDataEnvelope(String blocktype, Consumer<DataEnvelope> consumer);
     boolean updateDataBlockType(String name, String newBlockType);
-    CompletableFuture<HttpStatus> saveDataLake(String payload);
+    BulkUpdateResult updateDataBlockTypes(BulkUpdateRequest request);
+    Map<BlockTypeEnum, BlockTypeStats> getBlockTypeStats();
+    SseEmitter subscribeDataEnvelope(BlockTypeEnum blockType, Long lastEventId);
 }
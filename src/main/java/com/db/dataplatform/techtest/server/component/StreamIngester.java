@@ -0,0 +1,10 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.StreamIngestResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface StreamIngester {
+    StreamIngestResult ingest(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,188 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.AsyncConfiguration;
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.DataLakeClient;
+import com.db.dataplatform.techtest.server.component.DataLakeDispatcher;
+import com.db.dataplatform.techtest.server.latency.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces data lake pushes into bulk requests. Payloads are buffered until the buffer holds
+ * maxBatchSize payloads or the first one has waited lingerMs, then the whole buffer is sent in one request
+ * and the future of every payload in it completes with the status of that request.
+ */
+@Slf4j
+@Component
+public class BatchingDataLakeDispatcher implements DataLakeDispatcher {
+
+    private final DataLakeProperties dataLakeProperties;
+    private final DataLakeClient dataLakeClient;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final Object lock = new Object();
+    private List<PendingPayload> buffer = new ArrayList<>();
+    private long bufferGeneration;
+
+    private final Executor flushExecutor;
+    private final ScheduledExecutorService lingerTimer;
+
+    public BatchingDataLakeDispatcher(DataLakeProperties dataLakeProperties,
+                                      @Qualifier(AsyncConfiguration.DATA_LAKE_EXECUTOR) Executor flushExecutor,
+                                      DataLakeClient dataLakeClient, MeterRegistry meterRegistry) {
+        this.dataLakeProperties = dataLakeProperties;
+        this.flushExecutor = flushExecutor;
+        this.dataLakeClient = dataLakeClient;
+
+        DataLakeProperties.Concurrency concurrency = dataLakeProperties.getConcurrency();
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter("datalake", concurrency.getInitialLimit(),
+                concurrency.getMinLimit(), concurrency.getMaxLimit(), concurrency.getLatencyThresholdMs(),
+                concurrency.getBackoffRatio(), meterRegistry);
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datalake-linger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Buffer the payload for the next bulk request
+     * @param payload Payload string
+     * @return Future completed with the HTTP status of the bulk request, or exceptionally if it failed
+     */
+    @Override
+    public CompletableFuture<HttpStatus> submit(String payload) {
+        CompletableFuture<HttpStatus> future = new CompletableFuture<>();
+        List<PendingPayload> fullBuffer = null;
+
+        synchronized (lock) {
+            buffer.add(new PendingPayload(payload, future));
+            if (buffer.size() >= dataLakeProperties.getMaxBatchSize()) {
+                fullBuffer = takeBuffer();
+            } else if (buffer.size() == 1) {
+                long generation = bufferGeneration;
+                lingerTimer.schedule(() -> lingerExpired(generation), dataLakeProperties.getLingerMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (fullBuffer != null) {
+            dispatch(fullBuffer);
+        }
+        return future;
+    }
+
+    /**
+     * Send the buffered payloads and stop, the flush executor finishes the bulk requests in flight on its shutdown
+     */
+    @PreDestroy
+    public void stop() {
+        List<PendingPayload> remaining;
+        synchronized (lock) {
+            remaining = takeBuffer();
+        }
+        if (!remaining.isEmpty()) {
+            dispatch(remaining);
+        }
+        lingerTimer.shutdownNow();
+    }
+
+    private List<PendingPayload> takeBuffer() {
+        List<PendingPayload> taken = buffer;
+        buffer = new ArrayList<>();
+        bufferGeneration++;
+        return taken;
+    }
+
+    /**
+     * Flush the buffer its first payload has waited for, unless it was flushed already for being full
+     * @param generation Generation of the buffer when the timer was set
+     */
+    private void lingerExpired(long generation) {
+        List<PendingPayload> expired;
+        synchronized (lock) {
+            if (generation != bufferGeneration || buffer.isEmpty()) {
+                return;
+            }
+            expired = takeBuffer();
+        }
+        dispatch(expired);
+    }
+
+    /**
+     * Hand the batch to the flush executor, failing its payloads if the executor is saturated
+     * @param batch Buffered payloads
+     */
+    private void dispatch(List<PendingPayload> batch) {
+        try {
+            flushExecutor.execute(() -> flush(batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("Data lake flush executor saturated, failing {} payloads", batch.size());
+            fail(batch, e);
+        }
+    }
+
+    private void flush(List<PendingPayload> batch) {
+        List<String> payloads = new ArrayList<>(batch.size());
+        for (PendingPayload pendingPayload : batch) {
+            payloads.add(pendingPayload.payload);
+        }
+
+        try {
+            if (!concurrencyLimiter.acquire(dataLakeProperties.getConcurrency().getQueueTimeoutMs())) {
+                log.warn("Data lake concurrency limit {} reached, failing {} payloads", (int) concurrencyLimiter.getLimit(), batch.size());
+                fail(batch, new RejectedExecutionException("Data lake concurrency limit reached"));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(batch, e);
+            return;
+        }
+
+        log.info("Save {} payloads to data lake: {}", payloads.size(), dataLakeProperties.getBulkUri());
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            HttpStatus status = dataLakeClient.push(payloads);
+            batch.forEach(pendingPayload -> pendingPayload.future.complete(status));
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            dropped = true;
+            fail(batch, e);
+        } catch (RuntimeException e) {
+            fail(batch, e);
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private static void fail(List<PendingPayload> batch, Throwable failure) {
+        batch.forEach(pendingPayload -> pendingPayload.future.completeExceptionally(failure));
+    }
+
+    private static final class PendingPayload {
+
+        private final String payload;
+        private final CompletableFuture<HttpStatus> future;
+
+        private PendingPayload(String payload, CompletableFuture<HttpStatus> future) {
+            this.payload = payload;
+            this.future = future;
+        }
+    }
+}
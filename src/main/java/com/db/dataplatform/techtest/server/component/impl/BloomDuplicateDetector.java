@@ -0,0 +1,186 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.checksum.Md5Checksum;
+import com.db.dataplatform.techtest.server.component.DuplicateDetector;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers the name and body digest of every pushed data block, so that a retried push can be answered
+ * without a round-trip to the DB. A Bloom filter answers the common case of a new data block
+ * without touching the exact set, which is only consulted when the filter reports a possible match.
+ * The exact set keeps the maxCachedEntries most recently pushed data blocks; a possible match
+ * that is not cached is looked up in the DB.
+ */
+@Slf4j
+@Component
+public class BloomDuplicateDetector implements DuplicateDetector {
+
+    private final DataBodyService dataBodyServiceImpl;
+
+    private final Map<Key, Boolean> pushed;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomDuplicateDetector(DataBodyService dataBodyServiceImpl, IngestProperties ingestProperties) {
+        this.dataBodyServiceImpl = dataBodyServiceImpl;
+
+        IngestProperties.DuplicateDetection duplicateDetection = ingestProperties.getDuplicateDetection();
+        long expectedInsertions = Math.max(1, duplicateDetection.getExpectedInsertions());
+        double falsePositiveRate = duplicateDetection.getFalsePositiveRate();
+
+        long optimalBitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBitCount + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+
+        int maxCachedEntries = duplicateDetection.getMaxCachedEntries();
+        this.pushed = Collections.synchronizedMap(new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > maxCachedEntries;
+            }
+        });
+    }
+
+    /**
+     * Load the data blocks already stored in DB
+     */
+    @PostConstruct
+    public void warmUp() {
+        dataBodyServiceImpl.forEachNameAndDataBody((name, dataBody) -> record(name, Md5Checksum.digest(dataBody)));
+        log.info("Duplicate detector warmed up, {} data blocks cached", pushed.size());
+    }
+
+    /**
+     * @param name Data block name
+     * @param md5Digest MD5 digest of the data body
+     * @return true if a data block with the same name and body has been pushed before
+     */
+    @Override
+    public boolean isDuplicate(String name, byte[] md5Digest) {
+        Key key = new Key(name, md5Digest);
+        if (!mightContain(key)) {
+            return false;
+        }
+        if (pushed.get(key) != null) {
+            return true;
+        }
+        return isStored(key);
+    }
+
+    /**
+     * Remember a pushed data block
+     * @param name Data block name
+     * @param md5Digest MD5 digest of the data body
+     */
+    @Override
+    public void record(String name, byte[] md5Digest) {
+        Key key = new Key(name, md5Digest);
+        pushed.put(key, Boolean.TRUE);
+
+        long hash1 = key.hash1();
+        long hash2 = key.hash2();
+        for (int i = 0; i < hashCount; i++) {
+            setBit(index(hash1, hash2, i));
+        }
+    }
+
+    private boolean isStored(Key key) {
+        for (DataBodyEntity dataBodyEntity : dataBodyServiceImpl.getDataBodyByBlockName(key.name)) {
+            if (Arrays.equals(Md5Checksum.digest(dataBodyEntity.getDataBody()), key.md5Digest)) {
+                pushed.put(key, Boolean.TRUE);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mightContain(Key key) {
+        long hash1 = key.hash1();
+        long hash2 = key.hash2();
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    private static final class Key {
+
+        private final String name;
+        private final byte[] md5Digest;
+
+        private Key(String name, byte[] md5Digest) {
+            this.name = name;
+            this.md5Digest = md5Digest;
+        }
+
+        /**
+         * The digest is uniformly distributed already, so its two halves serve as the base hashes,
+         * mixed with the name for data blocks sharing a body.
+         */
+        private long hash1() {
+            return readLong(0) ^ (name.hashCode() * 0x9e3779b97f4a7c15L);
+        }
+
+        private long hash2() {
+            return readLong(8) | 1;
+        }
+
+        private long readLong(int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8 && i < md5Digest.length; i++) {
+                value = (value << 8) | (md5Digest[i] & 0xff);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return name.equals(key.name) && Arrays.equals(md5Digest, key.md5Digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Arrays.hashCode(md5Digest);
+        }
+    }
+}
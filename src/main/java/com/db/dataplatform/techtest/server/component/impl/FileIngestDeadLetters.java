@@ -0,0 +1,79 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.IngestDeadLetters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Keeps the journaled data blocks the DB rejected while draining the ingest journal, as their push has already
+ * been acknowledged. Each one is appended as a line of Json to the dead letter file, with the rejection reason,
+ * so it can be inspected and pushed again.
+ */
+@Slf4j
+@Component
+public class FileIngestDeadLetters implements IngestDeadLetters {
+
+    public static final String METRIC_REJECTED = "dataserver.ingest.journal.rejected";
+
+    private final IngestProperties ingestProperties;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public FileIngestDeadLetters(IngestProperties ingestProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(ingestProperties, objectMapper, meterRegistry, Clock.systemUTC());
+    }
+
+    public FileIngestDeadLetters(IngestProperties ingestProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry, Clock clock) {
+        this.ingestProperties = ingestProperties;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.rejectedCounter = Counter.builder(METRIC_REJECTED)
+                .description("Journaled data blocks rejected by the DB after their push was acknowledged")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void reject(DataEnvelope envelope, String reason) {
+        rejectedCounter.increment();
+        log.error("Journaled data {} rejected by the DB: {}", envelope.getDataHeader().getName(), reason);
+
+        ObjectNode deadLetter = objectMapper.createObjectNode();
+        deadLetter.put("rejectedTimestamp", Instant.now(clock).toString());
+        deadLetter.put("reason", reason);
+        deadLetter.set("dataEnvelope", objectMapper.valueToTree(envelope));
+
+        Path path = Paths.get(ingestProperties.getJournal().getDeadLetterPath());
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(objectMapper.writeValueAsString(deadLetter));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            log.error("Cannot write journaled data {} to the dead letter file {}", envelope.getDataHeader().getName(), path, e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.DataLakeClient;
+import com.db.dataplatform.techtest.server.latency.LatencyHistogram;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends bulk requests to the data lake, hedging the slow ones: a request still running after the configured
+ * latency percentile of recent requests is sent a second time, the first successful response wins
+ * and the other attempt is aborted. Hedges are limited to a share of the requests and a number in flight,
+ * so a slow data lake does not receive twice the load. Attempts still running after the request timeout
+ * are aborted.
+ */
+@Slf4j
+@Component
+public class HedgingDataLakeClient implements DataLakeClient {
+
+    public static final String METRIC_REQUEST = "dataserver.datalake.request";
+    public static final String METRIC_HEDGES = "dataserver.datalake.hedges";
+    public static final String METRIC_HEDGE_WINS = "dataserver.datalake.hedge.wins";
+
+    private final DataLakeProperties dataLakeProperties;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    private final LatencyHistogram latencyHistogram;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final Semaphore hedgesInFlight;
+
+    private final ScheduledExecutorService hedgeTimer;
+    private final ExecutorService hedgeExecutor;
+
+    private final Timer requestTimer;
+    private final Counter hedgeCounter;
+    private final Counter hedgeWinCounter;
+
+    public HedgingDataLakeClient(DataLakeProperties dataLakeProperties, CloseableHttpClient httpClient,
+                                 ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.dataLakeProperties = dataLakeProperties;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+
+        DataLakeProperties.Hedging hedging = dataLakeProperties.getHedging();
+        this.latencyHistogram = new LatencyHistogram(hedging.getWindowSize());
+        this.hedgesInFlight = new Semaphore(hedging.getMaxConcurrentHedges());
+        this.hedgeTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datalake-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "datalake-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.requestTimer = Timer.builder(METRIC_REQUEST).register(meterRegistry);
+        this.hedgeCounter = Counter.builder(METRIC_HEDGES).register(meterRegistry);
+        this.hedgeWinCounter = Counter.builder(METRIC_HEDGE_WINS).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        hedgeTimer.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Send the payloads in one bulk request, hedged if it is slow
+     * @param payloads Payload strings
+     * @return HTTP status of the first successful attempt
+     * @throws HttpServerErrorException if every attempt failed and the last one with a 5xx status
+     * @throws ResourceAccessException if every attempt failed and the last one with an I/O error,
+     *                                  or the request timed out
+     */
+    @Override
+    public HttpStatus push(List<String> payloads) {
+        Exchange exchange = new Exchange(toJson(payloads));
+        requests.incrementAndGet();
+
+        long requestTimeoutMs = dataLakeProperties.getRequestTimeoutMs();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+        // The first attempt runs on the calling thread, so the timeout aborts it from the timer thread.
+        ScheduledFuture<?> timeout = hedgeTimer.schedule(() -> exchange.timeout(requestTimeoutMs), requestTimeoutMs, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> hedge = null;
+        long hedgeDelayMs = hedgeDelayMs();
+        if (hedgeDelayMs >= 0) {
+            hedge = hedgeTimer.schedule(() -> hedge(exchange), hedgeDelayMs, TimeUnit.MILLISECONDS);
+        }
+
+        try {
+            exchange.attempt(false);
+            return exchange.winner.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while pushing to data lake");
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Data lake request timed out after " + requestTimeoutMs + " ms");
+        } finally {
+            timeout.cancel(false);
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+            exchange.abort();
+        }
+    }
+
+    /**
+     * @return Delay after which a request is hedged, -1 if it is not to be hedged
+     */
+    private long hedgeDelayMs() {
+        DataLakeProperties.Hedging hedging = dataLakeProperties.getHedging();
+        if (!hedging.isEnabled() || latencyHistogram.getCount() < hedging.getMinSamples()) {
+            return -1;
+        }
+        return latencyHistogram.percentile(hedging.getPercentile());
+    }
+
+    private void hedge(Exchange exchange) {
+        if (exchange.winner.isDone()
+                || hedges.get() + 1 > requests.get() * dataLakeProperties.getHedging().getMaxHedgeRatio()
+                || !hedgesInFlight.tryAcquire()) {
+            return;
+        }
+        hedges.incrementAndGet();
+        hedgeCounter.increment();
+        try {
+            hedgeExecutor.execute(() -> {
+                try {
+                    exchange.attempt(true);
+                } finally {
+                    hedgesInFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            hedgesInFlight.release();
+            log.warn("Cannot hedge data lake request: {}", e.getMessage());
+        }
+    }
+
+    private byte[] toJson(List<String> payloads) {
+        try {
+            return objectMapper.writeValueAsBytes(payloads);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize data lake payloads", e);
+        }
+    }
+
+    /**
+     * Attempts of one bulk request, completing the winner with the first success or the last failure
+     */
+    private final class Exchange {
+
+        private final byte[] body;
+        private final CompletableFuture<HttpStatus> winner = new CompletableFuture<>();
+        private final List<HttpPost> posts = new CopyOnWriteArrayList<>();
+        private int running;
+
+        private Exchange(byte[] body) {
+            this.body = body;
+        }
+
+        private void attempt(boolean hedge) {
+            HttpPost post = new HttpPost(dataLakeProperties.getBulkUri());
+            post.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+            post.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+            synchronized (this) {
+                if (winner.isDone()) {
+                    return;
+                }
+                running++;
+                posts.add(post);
+            }
+
+            long start = System.nanoTime();
+            HttpStatus status;
+            try (CloseableHttpResponse response = httpClient.execute(post)) {
+                EntityUtils.consume(response.getEntity());
+                long latencyNanos = System.nanoTime() - start;
+                latencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+                requestTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+                status = HttpStatus.valueOf(response.getStatusLine().getStatusCode());
+            } catch (IOException | RuntimeException e) {
+                failed(post.isAborted() ? new ResourceAccessException("Data lake request aborted")
+                        : new ResourceAccessException("Data lake request failed: " + e.getMessage()));
+                return;
+            }
+
+            if (status.is2xxSuccessful()) {
+                // The response is closed by now, so only the losing attempts are aborted.
+                if (winner.complete(status)) {
+                    if (hedge) {
+                        hedgeWinCounter.increment();
+                    }
+                    abortOthers(post);
+                }
+            } else if (status.is5xxServerError()) {
+                failed(new HttpServerErrorException(status));
+            } else {
+                failed(new HttpClientErrorException(status));
+            }
+        }
+
+        /**
+         * Abort the attempts that lost to the winning one, releasing the thread waiting on the primary attempt
+         * @param won Winning attempt
+         */
+        private void abortOthers(HttpPost won) {
+            for (HttpPost post : posts) {
+                if (post != won) {
+                    post.abort();
+                }
+            }
+        }
+
+        private synchronized void failed(RuntimeException failure) {
+            running--;
+            if (running == 0) {
+                winner.completeExceptionally(failure);
+            }
+        }
+
+        /**
+         * Fail the exchange and abort its attempts once the request timeout has elapsed
+         * @param requestTimeoutMs Request timeout
+         */
+        private void timeout(long requestTimeoutMs) {
+            if (winner.completeExceptionally(new ResourceAccessException("Data lake request timed out after " + requestTimeoutMs + " ms"))) {
+                for (HttpPost post : posts) {
+                    post.abort();
+                }
+            }
+        }
+
+        /**
+         * Abort the attempts still running once the exchange is over
+         */
+        private void abort() {
+            synchronized (this) {
+                // No attempt may start after this point.
+                winner.completeExceptionally(new ResourceAccessException("Data lake request aborted"));
+            }
+            for (HttpPost post : posts) {
+                post.abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.component.IngestJournal;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for pushed data blocks, kept in a memory-mapped file.
+ * <p>
+ * Appending threads write their record into the mapping and wait; a flusher thread forces all records appended
+ * since its previous pass to disk with one fsync and then releases their threads (group commit).
+ * A drainer thread hands the durable records to the sink in batches and advances the drained position
+ * stored in the file header, so records not yet drained are replayed to the sink after a restart.
+ * Once everything is drained the journal starts over at the beginning of the file.
+ * <p>
+ * File layout: header [magic][version][drained position], then records [length][crc32][payload],
+ * the record after the last one always starts with a zero length.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MappedIngestJournal implements IngestJournal {
+
+    private static final int MAGIC = 0x444a524e;
+    private static final int VERSION = 1;
+    private static final int DRAINED_POSITION_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int TERMINATOR_SIZE = 4;
+    private static final short NULL_LENGTH = -1;
+
+    private final IngestProperties ingestProperties;
+
+    private final Object lock = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private ByteBuffer readBuffer;
+    private Consumer<List<DataEnvelope>> sink;
+
+    private int writePosition;
+    private int drainedPosition;
+    private volatile int durablePosition;
+    private List<CompletableFuture<Void>> pendingAppends = new ArrayList<>();
+
+    private volatile boolean running;
+    private Thread flusher;
+    private ScheduledExecutorService drainer;
+
+    @Override
+    public boolean isEnabled() {
+        return ingestProperties.getJournal().isEnabled();
+    }
+
+    /**
+     * Open the journal file, replay records not yet drained and start the flusher and drainer threads
+     * @param sink Receiver of journaled data blocks, expected to persist them and throw if it could not
+     */
+    @Override
+    public synchronized void start(Consumer<List<DataEnvelope>> sink) {
+        if (running) {
+            return;
+        }
+        this.sink = sink;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ingest journal " + ingestProperties.getJournal().getPath(), e);
+        }
+        running = true;
+
+        flusher = new Thread(this::flushLoop, "ingest-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ingest-journal-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, 0, ingestProperties.getJournal().getDrainIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the journal, records not yet drained are replayed on the next start
+     * @throws InterruptedException if interrupted while waiting for the threads to finish
+     * @throws IOException if the journal file cannot be closed
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        flusher.join();
+        drainer.shutdown();
+        drainer.awaitTermination(10, TimeUnit.SECONDS);
+        buffer.force();
+        channel.close();
+        log.info("Ingest journal stopped, {} bytes left to drain", writePosition - drainedPosition);
+    }
+
+    /**
+     * Append the data block to the journal and wait until it is on disk
+     * @param envelope Data block
+     * @return true once the data block is durable, false if the journal is full
+     */
+    @Override
+    public boolean append(DataEnvelope envelope) {
+        byte[] payload = encode(envelope);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Ingest journal is not running");
+            }
+            int recordEnd = writePosition + RECORD_HEADER_SIZE + payload.length;
+            if (recordEnd + TERMINATOR_SIZE > buffer.capacity()) {
+                return false;
+            }
+
+            // Terminate the journal after this record before publishing the record length, so replay stops here.
+            buffer.position(writePosition + RECORD_HEADER_SIZE);
+            buffer.put(payload);
+            buffer.putInt(recordEnd, 0);
+            buffer.putInt(writePosition + 4, crc(payload));
+            buffer.putInt(writePosition, payload.length);
+            writePosition = recordEnd;
+
+            pendingAppends.add(durable);
+            lock.notifyAll();
+        }
+
+        durable.join();
+        return true;
+    }
+
+    private void open() throws IOException {
+        IngestProperties.Journal journal = ingestProperties.getJournal();
+        Path path = Paths.get(journal.getPath());
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, journal.getSizeBytes());
+        readBuffer = buffer.duplicate();
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.putInt(DRAINED_POSITION_OFFSET, HEADER_SIZE);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(0, MAGIC);
+            buffer.force();
+        }
+
+        drainedPosition = buffer.getInt(DRAINED_POSITION_OFFSET);
+        int position = drainedPosition;
+        int records = 0;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()
+                    || crc(position + RECORD_HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            records++;
+        }
+        if (position + TERMINATOR_SIZE <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+        writePosition = position;
+        durablePosition = position;
+        log.info("Ingest journal {} opened, {} data blocks to replay", path, records);
+    }
+
+    /**
+     * Force appended records to disk, one fsync for all the records appended while the previous one ran.
+     * If forcing fails, the journal is rolled back over the failed records and those appended since, so the
+     * clients answered with an error do not find their data blocks drained later on.
+     */
+    private void flushLoop() {
+        while (true) {
+            List<CompletableFuture<Void>> batch;
+            int batchPosition;
+            int forcedPosition;
+            synchronized (lock) {
+                while (pendingAppends.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pendingAppends.isEmpty()) {
+                    return;
+                }
+                batch = pendingAppends;
+                pendingAppends = new ArrayList<>();
+                batchPosition = durablePosition;
+                forcedPosition = writePosition;
+            }
+
+            try {
+                buffer.force();
+                durablePosition = forcedPosition;
+                batch.forEach(durable -> durable.complete(null));
+            } catch (RuntimeException e) {
+                log.error("Forcing ingest journal to disk failed, rolling back {} appended data blocks", batch.size(), e);
+                synchronized (lock) {
+                    // Records appended during the force follow the failed ones, so they are rolled back as well.
+                    batch.addAll(pendingAppends);
+                    pendingAppends = new ArrayList<>();
+                    buffer.putInt(batchPosition, 0);
+                    writePosition = batchPosition;
+                }
+                batch.forEach(durable -> durable.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Hand the durable records to the sink in batches, advancing the drained position after each batch
+     */
+    private void drain() {
+        try {
+            int position;
+            synchronized (lock) {
+                position = drainedPosition;
+            }
+            int end = durablePosition;
+            int drainBatchSize = ingestProperties.getJournal().getDrainBatchSize();
+
+            while (position < end) {
+                List<DataEnvelope> batch = new ArrayList<>(drainBatchSize);
+                int batchEnd = position;
+                while (batchEnd < end && batch.size() < drainBatchSize) {
+                    int length = readBuffer.getInt(batchEnd);
+                    batch.add(decode(batchEnd + RECORD_HEADER_SIZE));
+                    batchEnd += RECORD_HEADER_SIZE + length;
+                }
+
+                sink.accept(batch);
+                position = batchEnd;
+                synchronized (lock) {
+                    drainedPosition = position;
+                    buffer.putInt(DRAINED_POSITION_OFFSET, drainedPosition);
+                    if (drainedPosition == writePosition && durablePosition == writePosition && pendingAppends.isEmpty()) {
+                        // Everything appended is drained, start over at the beginning of the file.
+                        buffer.putInt(HEADER_SIZE, 0);
+                        buffer.putInt(DRAINED_POSITION_OFFSET, HEADER_SIZE);
+                        drainedPosition = HEADER_SIZE;
+                        writePosition = HEADER_SIZE;
+                        durablePosition = HEADER_SIZE;
+                    }
+                }
+                buffer.force();
+                log.debug("Drained {} data blocks from ingest journal", batch.size());
+            }
+        } catch (RuntimeException e) {
+            log.error("Draining ingest journal failed, will retry", e);
+        }
+    }
+
+    private static byte[] encode(DataEnvelope envelope) {
+        DataHeader dataHeader = envelope.getDataHeader();
+        byte[] name = toBytes(dataHeader.getName());
+        byte[] blockType = toBytes(dataHeader.getBlockType() == null ? null : dataHeader.getBlockType().name());
+        byte[] dataBody = toBytes(envelope.getDataBody().getDataBody());
+
+        ByteBuffer payload = ByteBuffer.allocate(2 + length(name) + 2 + length(blockType) + 4 + length(dataBody));
+        payload.putShort(name == null ? NULL_LENGTH : (short) name.length);
+        if (name != null) {
+            payload.put(name);
+        }
+        payload.putShort(blockType == null ? NULL_LENGTH : (short) blockType.length);
+        if (blockType != null) {
+            payload.put(blockType);
+        }
+        payload.putInt(dataBody == null ? NULL_LENGTH : dataBody.length);
+        if (dataBody != null) {
+            payload.put(dataBody);
+        }
+        return payload.array();
+    }
+
+    private DataEnvelope decode(int position) {
+        readBuffer.position(position);
+        String name = readString(readBuffer.getShort());
+        String blockType = readString(readBuffer.getShort());
+        String dataBody = readString(readBuffer.getInt());
+
+        DataHeader dataHeader = new DataHeader(name, blockType == null ? null : BlockTypeEnum.valueOf(blockType));
+        return new DataEnvelope(dataHeader, new DataBody(dataBody));
+    }
+
+    private String readString(int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        readBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private int crc(int position, int length) {
+        ByteBuffer region = readBuffer.duplicate();
+        region.limit(position + length);
+        region.position(position);
+        CRC32 crc32 = new CRC32();
+        crc32.update(region);
+        return (int) crc32.getValue();
+    }
+}
@@ -0,0 +1,170 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.DataLakeDispatcher;
+import com.db.dataplatform.techtest.server.component.DataLakeOutboxRelay;
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import com.db.dataplatform.techtest.server.service.DataLakeOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers the payloads of the DATA_LAKE_OUTBOX table to the data lake. Each round reads a batch of due payloads,
+ * submits them to the data lake dispatcher and marks those delivered; the others are retried with exponential backoff.
+ * After failureThreshold rounds in a row delivering nothing the circuit opens: deliveries are suspended for
+ * openDurationMs, then a single payload is tried and the circuit closes again once it is delivered.
+ */
+@Slf4j
+@Component
+public class ScheduledDataLakeOutboxRelay implements DataLakeOutboxRelay {
+
+    public static final String METRIC_DELIVERED = "dataserver.datalake.outbox.delivered";
+    public static final String METRIC_FAILED = "dataserver.datalake.outbox.failed";
+    public static final String METRIC_CIRCUIT_OPEN = "dataserver.datalake.outbox.circuit.open";
+
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final DataLakeProperties dataLakeProperties;
+    private final DataLakeOutboxService dataLakeOutboxServiceImpl;
+    private final DataLakeDispatcher dataLakeDispatcher;
+    private final Clock clock;
+
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    private int consecutiveFailures;
+    private volatile Instant openUntil = Instant.EPOCH;
+    private Instant lastPurge = Instant.EPOCH;
+
+    @Autowired
+    public ScheduledDataLakeOutboxRelay(DataLakeProperties dataLakeProperties, DataLakeOutboxService dataLakeOutboxServiceImpl,
+                                        DataLakeDispatcher dataLakeDispatcher, MeterRegistry meterRegistry) {
+        this(dataLakeProperties, dataLakeOutboxServiceImpl, dataLakeDispatcher, meterRegistry, Clock.systemUTC());
+    }
+
+    public ScheduledDataLakeOutboxRelay(DataLakeProperties dataLakeProperties, DataLakeOutboxService dataLakeOutboxServiceImpl,
+                                        DataLakeDispatcher dataLakeDispatcher, MeterRegistry meterRegistry, Clock clock) {
+        this.dataLakeProperties = dataLakeProperties;
+        this.dataLakeOutboxServiceImpl = dataLakeOutboxServiceImpl;
+        this.dataLakeDispatcher = dataLakeDispatcher;
+        this.clock = clock;
+
+        this.deliveredCounter = Counter.builder(METRIC_DELIVERED).register(meterRegistry);
+        this.failedCounter = Counter.builder(METRIC_FAILED).register(meterRegistry);
+        Gauge.builder(METRIC_CIRCUIT_OPEN, this, relay -> relay.isCircuitOpen() ? 1 : 0).register(meterRegistry);
+    }
+
+    /**
+     * Relay full batches until the outbox has no more due payloads or maxBatchesPerPoll is reached,
+     * then purge payloads delivered longer ago than the retention
+     */
+    @Scheduled(fixedDelayString = "${dataserver.datalake.outbox.poll-interval-ms:500}")
+    public void poll() {
+        DataLakeProperties.Outbox outbox = dataLakeProperties.getOutbox();
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < outbox.getMaxBatchesPerPoll(); i++) {
+                if (relay() < outbox.getBatchSize()) {
+                    break;
+                }
+            }
+
+            Instant now = clock.instant();
+            if (Duration.between(lastPurge, now).toMillis() >= PURGE_INTERVAL_MS) {
+                lastPurge = now;
+                int purged = dataLakeOutboxServiceImpl.purgeDelivered(now.minus(Duration.ofMinutes(outbox.getRetentionMinutes())));
+                log.debug("Purged {} delivered payloads from data lake outbox", purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Relaying data lake outbox failed, will retry", e);
+        }
+    }
+
+    /**
+     * Deliver one batch of due payloads
+     * @return Number of payloads delivered
+     */
+    @Override
+    public int relay() {
+        DataLakeProperties.Outbox outbox = dataLakeProperties.getOutbox();
+        Instant now = clock.instant();
+        if (now.isBefore(openUntil)) {
+            return 0;
+        }
+
+        boolean halfOpen = consecutiveFailures >= outbox.getFailureThreshold();
+        List<DataLakeOutboxEntity> pending = dataLakeOutboxServiceImpl.findPending(now, halfOpen ? 1 : outbox.getBatchSize());
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<HttpStatus>> deliveries = new ArrayList<>(pending.size());
+        for (DataLakeOutboxEntity outboxEntity : pending) {
+            deliveries.add(dataLakeDispatcher.submit(outboxEntity.getPayload()));
+        }
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).handle((result, ex) -> null).join();
+
+        Instant completed = clock.instant();
+        List<Long> delivered = new ArrayList<>(pending.size());
+        List<DataLakeOutboxEntity> failed = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            DataLakeOutboxEntity outboxEntity = pending.get(i);
+            if (deliveries.get(i).isCompletedExceptionally()) {
+                outboxEntity.setAttempts(outboxEntity.getAttempts() + 1);
+                outboxEntity.setNextAttemptTimestamp(completed.plusMillis(backoffMs(outboxEntity.getAttempts())));
+                failed.add(outboxEntity);
+            } else {
+                delivered.add(outboxEntity.getOutboxId());
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            dataLakeOutboxServiceImpl.markDelivered(delivered, completed);
+            deliveredCounter.increment(delivered.size());
+        }
+        if (!failed.isEmpty()) {
+            dataLakeOutboxServiceImpl.saveRetries(failed);
+            failedCounter.increment(failed.size());
+        }
+
+        if (delivered.isEmpty()) {
+            consecutiveFailures++;
+            if (consecutiveFailures >= outbox.getFailureThreshold()) {
+                openUntil = completed.plusMillis(outbox.getOpenDurationMs());
+                log.warn("Data lake outbox circuit open until {} after {} failed rounds", openUntil, consecutiveFailures);
+            }
+        } else {
+            if (halfOpen) {
+                log.info("Data lake outbox circuit closed");
+            }
+            consecutiveFailures = 0;
+        }
+        log.info("Data lake outbox round: {} delivered, {} to retry", delivered.size(), failed.size());
+        return delivered.size();
+    }
+
+    public boolean isCircuitOpen() {
+        return clock.instant().isBefore(openUntil);
+    }
+
+    private long backoffMs(int attempts) {
+        DataLakeProperties.Outbox outbox = dataLakeProperties.getOutbox();
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(outbox.getMaxBackoffMs(), outbox.getInitialBackoffMs() << doublings);
+    }
+}
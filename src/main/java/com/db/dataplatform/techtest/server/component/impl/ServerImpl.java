@@ -1,37 +1,84 @@
 package com.db.dataplatform.techtest.server.component.impl;
 
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateRequest;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataBody;
-import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.checksum.Md5Checksum;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.component.BlockTypeStatistics;
+import com.db.dataplatform.techtest.server.component.ChangeFeed;
+import com.db.dataplatform.techtest.server.component.DuplicateDetector;
+import com.db.dataplatform.techtest.server.component.IngestDeadLetters;
+import com.db.dataplatform.techtest.server.component.IngestJournal;
+import com.db.dataplatform.techtest.server.component.QueryResultCache;
 import com.db.dataplatform.techtest.server.component.Server;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.modelmapper.ModelMapper;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.annotation.PostConstruct;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ServerImpl implements Server {
 
+    /**
+     * Data blocks per UPDATE of a bulk update, within the 1000 elements Oracle allows in an IN list
+     */
+    public static final int BULK_UPDATE_CHUNK_SIZE = 1000;
+
     private final DataBodyService dataBodyServiceImpl;
-    private final ModelMapper modelMapper;
+    private final DataHeaderService dataHeaderServiceImpl;
+    private final DataEnvelopeMapper dataEnvelopeMapper;
+    private final IngestJournal ingestJournal;
+    private final IngestDeadLetters ingestDeadLetters;
+    private final DuplicateDetector duplicateDetector;
+    private final QueryResultCache queryResultCache;
+    private final BlockTypeStatistics blockTypeStatistics;
+    private final ChangeFeed changeFeed;
+
+    /**
+     * Distinguishes the ETags of this run from those of previous runs, whose versions started over at 0
+     */
+    private final String eTagEpoch = Long.toString(System.currentTimeMillis(), 36);
 
-    public static final String URI_DATALAKE_PUSHDATA = "http://localhost:8090/hadoopserver/pushbigdata";
+    /**
+     * Start draining the ingest journal into DB, if journaling is enabled
+     */
+    @PostConstruct
+    public void startIngestJournal() {
+        if (ingestJournal.isEnabled()) {
+            ingestJournal.start(this::persistJournaled);
+        }
+    }
 
     /**
      * Save the data block in DB if checksum equals to the calculated checksum
@@ -43,28 +90,253 @@ public class ServerImpl implements Server {
     public boolean saveDataEnvelope(DataEnvelope envelope, String checksum) {
 
         // Check
-        String calculatedCheckSum = DigestUtils.md5Hex(envelope.getDataBody().getDataBody());
-        if (checksum != null && !checksum.equals(calculatedCheckSum))
+        byte[] md5Digest = md5Digest(envelope);
+        if (!isChecksumValid(md5Digest, checksum))
             return false;
 
-        // Save to persistence.
-        persist(envelope);
-        log.info("Data persisted successfully, data name: {}", envelope.getDataHeader().getName());
+        String name = envelope.getDataHeader().getName();
+        if (duplicateDetector.isDuplicate(name, md5Digest)) {
+            log.info("Data already persisted, data name: {}", name);
+            return true;
+        }
+
+        // Journal, or save to persistence if journaling is off or the journal is full.
+        // The journal acknowledges before the DB is written, so a stored name is rejected here.
+        if (ingestJournal.isEnabled() && !dataHeaderServiceImpl.getExistingNames(Collections.singletonList(name)).isEmpty()) {
+            throw new DataIntegrityViolationException("Data block name " + name + " is already stored");
+        }
+        // A journaled data block is recorded as a duplicate once the drainer stored it, not when it is acknowledged.
+        if (ingestJournal.isEnabled() && ingestJournal.append(envelope)) {
+            log.info("Data journaled successfully, data name: {}", name);
+            return true;
+        }
+        DataBodyEntity dataBodyEntity = persist(envelope);
+        duplicateDetector.record(name, md5Digest);
+        onSaved(Collections.singletonList(dataBodyEntity));
+        log.info("Data persisted successfully, data name: {}", name);
         return true;
     }
 
+    /**
+     * Save the data blocks whose checksum matches in DB within a single transaction.
+     * Data blocks pushed before with the same name and body, or repeated in the batch, are not saved again.
+     * Data blocks whose name is
+     * stored for another data block, or used by an earlier data block of the batch, are not saved and
+     * reported with a name conflict, the rest of the batch is saved.
+     * A conflicting data block saved concurrently by another request still fails the whole batch,
+     * as it is saved in one transaction.
+     * @param envelopes Data blocks with their MD5 checksum
+     * @return Checksum and name conflict result of each data block, in the same order as given
+     */
+    @Override
+    public List<PushDataResult> saveDataEnvelopes(List<ChecksummedDataEnvelope> envelopes) {
+        List<byte[]> md5Digests = new ArrayList<>(envelopes.size());
+        List<Boolean> checksumPasses = new ArrayList<>(envelopes.size());
+        List<String> candidateNames = new ArrayList<>(envelopes.size());
+        Map<String, Integer> firstCandidates = new HashMap<>();
+        int[] repeatOf = new int[envelopes.size()];
+        Arrays.fill(repeatOf, -1);
+
+        for (int i = 0; i < envelopes.size(); i++) {
+            ChecksummedDataEnvelope checksummedDataEnvelope = envelopes.get(i);
+            DataEnvelope envelope = checksummedDataEnvelope.getDataEnvelope();
+            String name = envelope.getDataHeader().getName();
+            byte[] md5Digest = md5Digest(envelope);
+            boolean checksumPass = isChecksumValid(md5Digest, checksummedDataEnvelope.getChecksum());
+            md5Digests.add(md5Digest);
+            checksumPasses.add(checksumPass);
+            candidateNames.add(null);
+            if (!checksumPass || duplicateDetector.isDuplicate(name, md5Digest)) {
+                continue;
+            }
+            // The detector only knows saved data blocks, a data block repeated in the batch is saved once
+            Integer first = firstCandidates.putIfAbsent(name, i);
+            if (first != null && Arrays.equals(md5Digests.get(first), md5Digest)) {
+                repeatOf[i] = first;
+            } else {
+                candidateNames.set(i, name);
+            }
+        }
+
+        Set<String> takenNames = getExistingNames(candidateNames);
+        List<PushDataResult> results = new ArrayList<>(envelopes.size());
+        List<DataBodyEntity> dataBodyEntityList = new ArrayList<>(envelopes.size());
+        List<byte[]> savedMd5Digests = new ArrayList<>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            DataEnvelope envelope = envelopes.get(i).getDataEnvelope();
+            String name = candidateNames.get(i);
+            boolean nameConflict = false;
+            if (repeatOf[i] >= 0) {
+                nameConflict = results.get(repeatOf[i]).isNameConflict();
+            } else if (name != null) {
+                nameConflict = !takenNames.add(name);
+                if (!nameConflict) {
+                    dataBodyEntityList.add(dataEnvelopeMapper.toDataBodyEntity(envelope));
+                    savedMd5Digests.add(md5Digests.get(i));
+                }
+            }
+            results.add(new PushDataResult(envelope.getDataHeader().getName(), checksumPasses.get(i), nameConflict));
+        }
+
+        if (!dataBodyEntityList.isEmpty()) {
+            dataBodyServiceImpl.saveDataBodies(dataBodyEntityList);
+            for (int i = 0; i < dataBodyEntityList.size(); i++) {
+                duplicateDetector.record(dataBodyEntityList.get(i).getDataHeaderEntity().getName(), savedMd5Digests.get(i));
+            }
+            onSaved(dataBodyEntityList);
+        }
+        log.info("Batch persisted successfully, {} of {} data blocks saved", dataBodyEntityList.size(), envelopes.size());
+        return results;
+    }
+
+    /**
+     * Get the names stored in DB among the given ones, querying BULK_UPDATE_CHUNK_SIZE names at a time
+     * @param names Data block names, nulls are skipped
+     * @return Stored names
+     */
+    private Set<String> getExistingNames(List<String> names) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        distinctNames.remove(null);
+        Set<String> existingNames = new HashSet<>();
+        for (int from = 0; from < distinctNames.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+            existingNames.addAll(dataHeaderServiceImpl.getExistingNames(
+                    distinctNames.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, distinctNames.size()))));
+        }
+        return existingNames;
+    }
+
+    /**
+     * Get the MD5 digest of the data body, reusing the digest calculated during deserialization
+     * @param envelope Data block
+     * @return MD5 digest
+     */
+    private static byte[] md5Digest(DataEnvelope envelope) {
+        DataBody dataBody = envelope.getDataBody();
+        return dataBody.getMd5Digest() != null ? dataBody.getMd5Digest() : Md5Checksum.digest(dataBody.getDataBody());
+    }
+
+    /**
+     * Check the data body digest against the client provided checksum
+     * @param md5Digest MD5 digest of the data body
+     * @param checksum MD5 checksum provided by the client, may be null
+     * @return true if no checksum was provided or it equals to the calculated checksum
+     */
+    private static boolean isChecksumValid(byte[] md5Digest, String checksum) {
+        return checksum == null || Md5Checksum.matchesHex(md5Digest, checksum);
+    }
+
     /**
      * Save the DataEnvelope into DB
      * @param envelope DataEnvelop
+     * @return Saved data model of the DataEnvelope
      */
-    private void persist(DataEnvelope envelope) {
+    private DataBodyEntity persist(DataEnvelope envelope) {
         log.info("Persisting data with attribute name: {}", envelope.getDataHeader().getName());
-        DataHeaderEntity dataHeaderEntity = modelMapper.map(envelope.getDataHeader(), DataHeaderEntity.class);
+        DataBodyEntity dataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(envelope);
+        saveData(dataBodyEntity);
+        return dataBodyEntity;
+    }
+
+    /**
+     * Save data blocks drained from the ingest journal into DB. On a constraint violation the data blocks are
+     * saved one by one, skipping those already saved before a restart. The other data blocks the DB rejects
+     * have been acknowledged to their client already, so they are handed to the dead letters.
+     * Only the data blocks stored in DB are recorded in the duplicate detector, a dead-lettered one is not.
+     * @param envelopes Journaled data blocks
+     */
+    private void persistJournaled(List<DataEnvelope> envelopes) {
+        List<DataBodyEntity> dataBodyEntityList = new ArrayList<>(envelopes.size());
+        for (DataEnvelope envelope : envelopes) {
+            dataBodyEntityList.add(dataEnvelopeMapper.toDataBodyEntity(envelope));
+        }
+        List<DataEnvelope> stored = envelopes;
 
-        DataBodyEntity dataBodyEntity = modelMapper.map(envelope.getDataBody(), DataBodyEntity.class);
-        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        try {
+            dataBodyServiceImpl.saveDataBodies(dataBodyEntityList);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Journaled batch violates a constraint, saving data blocks one by one");
+            dataBodyEntityList = new ArrayList<>(envelopes.size());
+            stored = new ArrayList<>(envelopes.size());
+            for (DataEnvelope envelope : envelopes) {
+                try {
+                    DataBodyEntity dataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(envelope);
+                    saveData(dataBodyEntity);
+                    dataBodyEntityList.add(dataBodyEntity);
+                    stored.add(envelope);
+                } catch (DataIntegrityViolationException ex) {
+                    if (isStored(envelope)) {
+                        log.info("Skipping journaled data {}, already saved", envelope.getDataHeader().getName());
+                        stored.add(envelope);
+                    } else {
+                        ingestDeadLetters.reject(envelope, ex.getMessage());
+                    }
+                }
+            }
+        }
+        for (DataEnvelope envelope : stored) {
+            duplicateDetector.record(envelope.getDataHeader().getName(), md5Digest(envelope));
+        }
+        onSaved(dataBodyEntityList);
+    }
 
-        saveData(dataBodyEntity);
+    /**
+     * @param envelope Data block
+     * @return true if a data block with the same name and body is stored in DB
+     */
+    private boolean isStored(DataEnvelope envelope) {
+        for (DataBodyEntity dataBodyEntity : dataBodyServiceImpl.getDataBodyByBlockName(envelope.getDataHeader().getName())) {
+            if (dataBodyEntity.getDataBody().equals(envelope.getDataBody().getDataBody())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count the saved data blocks in the block type statistics, invalidate the cached query results
+     * of their block types and publish them to the subscribers of their block types
+     * @param dataBodyEntityList Saved data blocks
+     */
+    private void onSaved(List<DataBodyEntity> dataBodyEntityList) {
+        Set<BlockTypeEnum> blockTypes = EnumSet.noneOf(BlockTypeEnum.class);
+        for (DataBodyEntity dataBodyEntity : dataBodyEntityList) {
+            BlockTypeEnum blockType = dataBodyEntity.getDataHeaderEntity().getBlocktype();
+            if (blockType != null) {
+                blockTypes.add(blockType);
+                blockTypeStatistics.recordSaved(blockType, dataBodyEntity.getDataBody().length());
+            }
+        }
+        blockTypes.forEach(queryResultCache::invalidate);
+
+        List<DataBodyEntity> published = new ArrayList<>();
+        for (DataBodyEntity dataBodyEntity : dataBodyEntityList) {
+            BlockTypeEnum blockType = dataBodyEntity.getDataHeaderEntity().getBlocktype();
+            if (blockType != null && changeFeed.hasSubscribers(blockType)) {
+                published.add(dataBodyEntity);
+            }
+        }
+        if (!published.isEmpty()) {
+            afterCommit(() -> published.forEach(dataBodyEntity ->
+                    changeFeed.publishSaved(dataEnvelopeMapper.toDataEnvelope(dataBodyEntity))));
+        }
+    }
+
+    /**
+     * Run the action once the surrounding transaction committed, right away if there is none,
+     * as the services commit before returning here
+     * @param action Action to run
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
@@ -76,7 +348,8 @@ public class ServerImpl implements Server {
     }
 
     /**
-     * Get a list of DataEnvelop with given blocktype
+     * Get a list of DataEnvelop with given blocktype, served from the query cache while no data block
+     * of the blocktype was written
      * @param blocktype Name of BlockTypeEnum
      * @return List of DataEnvelope
      */
@@ -85,26 +358,99 @@ public class ServerImpl implements Server {
 
         for(BlockTypeEnum c : BlockTypeEnum.values()) {
             if (c.name().equals(blocktype)) {
-                return getDataEnvelopes(dataBodyServiceImpl.getDataBodyByBlockType(c));
+                return queryResultCache.get(c, dataBodyServiceImpl::getDataEnvelopesByBlockType);
             }
         }
         return null;
     }
 
     /**
-     * Convert a list of DataBodyEntity to DataEnvelop
-     * @param dataBodyEntityList List of DataBodyEntity
-     * @return List of DataEnvelop
+     * Get a weak ETag of the DataEnvelop with given blocktype, changing whenever a data block of the blocktype
+     * is saved or updated. Read it before the DataEnvelop it is sent with, so it is never newer than them.
+     * It is weak because the Json and Smile representations of the same DataEnvelop share it.
+     * @param blocktype Name of BlockTypeEnum
+     * @return ETag, null if the block type does not exist
      */
-    private static List<DataEnvelope> getDataEnvelopes(List<DataBodyEntity> dataBodyEntityList) {
-        List<DataEnvelope> dataEnvelopeList = new ArrayList<>();
-        for (DataBodyEntity dataBodyEntity : dataBodyEntityList) {
-            DataBody dataBody = new DataBody(dataBodyEntity.getDataBody());
-            DataHeader dataHeader = new DataHeader(dataBodyEntity.getDataHeaderEntity().getName(), dataBodyEntity.getDataHeaderEntity().getBlocktype());
-            DataEnvelope dataEnvelope = new DataEnvelope(dataHeader, dataBody);
-            dataEnvelopeList.add(dataEnvelope);
+    public String getDataEnvelopeETag(String blocktype) {
+        for(BlockTypeEnum c : BlockTypeEnum.values()) {
+            if (c.name().equals(blocktype)) {
+                return "W/\"" + c.name() + "-" + eTagEpoch + "-" + queryResultCache.getVersion(c) + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get one page of DataEnvelop with given blocktype, in the order they were stored
+     * @param blocktype Name of BlockTypeEnum
+     * @param limit Maximum number of DataEnvelope in the page
+     * @param after Cursor returned with the previous page, null for the first page
+     * @return Page of DataEnvelope with the cursor of the next page, null if the block type does not exist
+     */
+    public DataEnvelopePage getDataEnvelopePage(String blocktype, int limit, Long after) {
+        log.info("Get page with blocktype: {}, limit: {}, after: {}", blocktype, limit, after);
+
+        for(BlockTypeEnum c : BlockTypeEnum.values()) {
+            if (c.name().equals(blocktype)) {
+                // One row more than the page tells whether there is a next page.
+                return toDataEnvelopePage(dataBodyServiceImpl.getDataBodyPageByBlockType(c, after == null ? 0 : after, limit + 1), limit, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get one page of DataEnvelop stored in the time range, in the order of their creation time and DATA_STORE_ID
+     * @param from Inclusive start of the time range
+     * @param to Exclusive end of the time range
+     * @param blockType Block type, null for all block types
+     * @param limit Maximum number of DataEnvelope in the page
+     * @param afterTimestamp Cursor timestamp returned with the previous page, null for the first page
+     * @param after Cursor returned with the previous page, null for the first page
+     * @return Page of DataEnvelope with both cursors of the next page
+     */
+    public DataEnvelopePage getDataEnvelopePage(Instant from, Instant to, BlockTypeEnum blockType, int limit, Instant afterTimestamp, Long after) {
+        log.info("Get page with from: {}, to: {}, blocktype: {}, limit: {}, after: {} {}", from, to, blockType, limit, afterTimestamp, after);
+
+        // The first page follows (from, 0), which precedes every data block created at or after from.
+        boolean firstPage = afterTimestamp == null || after == null;
+        return toDataEnvelopePage(dataBodyServiceImpl.getDataBodyPageByCreatedTimestamp(from, to, blockType,
+                firstPage ? from : afterTimestamp, firstPage ? 0 : after, limit + 1), limit, true);
+    }
+
+    /**
+     * Convert a page of DataBodyEntity fetched with one row more than the limit to DataEnvelopePage
+     * @param dataBodyEntityList Up to limit + 1 DataBodyEntity in page order
+     * @param limit Maximum number of DataEnvelope in the page
+     * @param timestampCursor true to return the created timestamp of the last data block as cursor too
+     * @return Page of DataEnvelope with the cursor of the next page, null if there is none
+     */
+    private DataEnvelopePage toDataEnvelopePage(List<DataBodyEntity> dataBodyEntityList, int limit, boolean timestampCursor) {
+        boolean hasNext = dataBodyEntityList.size() > limit;
+        if (hasNext) {
+            dataBodyEntityList = dataBodyEntityList.subList(0, limit);
+        }
+        DataBodyEntity last = hasNext ? dataBodyEntityList.get(limit - 1) : null;
+        return new DataEnvelopePage(dataEnvelopeMapper.toDataEnvelopes(dataBodyEntityList),
+                last == null ? null : last.getDataStoreId(),
+                last == null || !timestampCursor ? null : last.getCreatedTimestamp());
+    }
+
+    /**
+     * Hand the DataEnvelop with given blocktype to the consumer one at a time, in the order they were stored,
+     * without holding the whole result in memory
+     * @param blocktype Name of BlockTypeEnum, nothing is streamed if it does not exist
+     * @param consumer Receiver of each DataEnvelope
+     */
+    public void streamDataEnvelope(String blocktype, Consumer<DataEnvelope> consumer) {
+        log.info("Stream with blocktype: {}" , blocktype);
+
+        for(BlockTypeEnum c : BlockTypeEnum.values()) {
+            if (c.name().equals(blocktype)) {
+                dataBodyServiceImpl.forEachDataBodyByBlockType(c, dataBodyEntity -> consumer.accept(dataEnvelopeMapper.toDataEnvelope(dataBodyEntity)));
+                return;
+            }
         }
-        return dataEnvelopeList;
     }
 
     /**
@@ -121,24 +467,104 @@ public class ServerImpl implements Server {
             return false;
 
         DataBodyEntity dataBodyEntity = dataBodyEntityList.get(0);
+        BlockTypeEnum oldBlockType = dataBodyEntity.getDataHeaderEntity().getBlocktype();
         dataBodyEntity.getDataHeaderEntity().setBlocktype(BlockTypeEnum.valueOf(newBlockType));
         dataBodyServiceImpl.saveDataBody(dataBodyEntity);
+        queryResultCache.invalidate(oldBlockType);
+        queryResultCache.invalidate(dataBodyEntity.getDataHeaderEntity().getBlocktype());
+        blockTypeStatistics.recordMoved(oldBlockType, dataBodyEntity.getDataHeaderEntity().getBlocktype(), 1, dataBodyEntity.getDataBody().length());
+        if (oldBlockType != dataBodyEntity.getDataHeaderEntity().getBlocktype()) {
+            afterCommit(() -> changeFeed.publishReclassified(dataEnvelopeMapper.toDataEnvelope(dataBodyEntity)));
+        }
         return true;
     }
 
     /**
-     * Async method for pushing payload to Hadoop data lake
-     * @param payload Payload string
-     * @return Http Status 200 OK if success, else Http 504 timeout
+     * Move many data blocks to a new block type with set-based UPDATEs of DATA_HEADER, one per chunk of
+     * BULK_UPDATE_CHUNK_SIZE data blocks, each chunk committed on its own
+     * @param request Data blocks selected by name, or by block type and creation time, and their new block type
+     * @return Number of data blocks updated
      */
-    @Async
-    public CompletableFuture<HttpStatus> saveDataLake(String payload) {
-        log.info("Save payload {} to data lake: {}", payload, URI_DATALAKE_PUSHDATA);
+    public BulkUpdateResult updateDataBlockTypes(BulkUpdateRequest request) {
+        BlockTypeEnum newBlockType = request.getNewBlockType();
+        Map<BlockTypeEnum, Integer> updatedByPreviousBlockType = new EnumMap<>(BlockTypeEnum.class);
+        int chunks = 0;
 
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<HttpStatus> response = restTemplate.postForEntity(URI_DATALAKE_PUSHDATA, payload, HttpStatus.class);
+        if (request.getNames() != null) {
+            List<String> names = request.getNames();
+            for (int from = 0; from < names.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+                List<String> chunk = names.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, names.size()));
+                // One UPDATE per previous block type, so the counts tell which block types the data blocks left.
+                for (BlockTypeEnum blockType : BlockTypeEnum.values()) {
+                    if (blockType != newBlockType) {
+                        // The data blocks the UPDATE moves are selected before it, so names already of the new
+                        // block type are not published.
+                        List<DataEnvelope> moving = changeFeed.hasSubscribers(newBlockType)
+                                ? dataBodyServiceImpl.getDataEnvelopesByNames(chunk, blockType) : Collections.emptyList();
+                        int blockTypeUpdated = dataHeaderServiceImpl.updateBlockTypeByNames(chunk, blockType, newBlockType);
+                        updatedByPreviousBlockType.merge(blockType, blockTypeUpdated, Integer::sum);
+                        if (blockTypeUpdated > 0) {
+                            for (DataEnvelope envelope : moving) {
+                                changeFeed.publishReclassified(new DataEnvelope(envelope.getDataHeader().getName(), newBlockType,
+                                        envelope.getDataBody().getDataBody()));
+                            }
+                        }
+                    }
+                }
+                chunks++;
+            }
+        } else if (request.getBlockType() != newBlockType) {
+            BlockTypeEnum blockType = request.getBlockType();
+            Instant createdBefore = request.getCreatedBefore() != null ? request.getCreatedBefore() : Instant.now();
+            long after = 0;
+            List<Long> ids;
+            do {
+                ids = dataHeaderServiceImpl.getIdsByBlockTypeCreatedBefore(blockType, createdBefore, after, BULK_UPDATE_CHUNK_SIZE);
+                if (!ids.isEmpty()) {
+                    int chunkUpdated = dataHeaderServiceImpl.updateBlockTypeByIds(ids, blockType, newBlockType);
+                    updatedByPreviousBlockType.merge(blockType, chunkUpdated, Integer::sum);
+                    chunks++;
+                    if (chunkUpdated > 0 && changeFeed.hasSubscribers(newBlockType)) {
+                        dataBodyServiceImpl.getDataEnvelopesByHeaderIds(ids, newBlockType).forEach(changeFeed::publishReclassified);
+                    }
+                    after = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == BULK_UPDATE_CHUNK_SIZE);
+        }
 
-        return CompletableFuture.completedFuture(response.getStatusCode());
+        int updated = 0;
+        for (Map.Entry<BlockTypeEnum, Integer> entry : updatedByPreviousBlockType.entrySet()) {
+            if (entry.getValue() > 0) {
+                updated += entry.getValue();
+                queryResultCache.invalidate(entry.getKey());
+                blockTypeStatistics.recordMoved(entry.getKey(), newBlockType, entry.getValue());
+            }
+        }
+        if (updated > 0) {
+            queryResultCache.invalidate(newBlockType);
+        }
+        log.info("Bulk updated {} data blocks to block type {} in {} chunks", updated, newBlockType, chunks);
+        return new BulkUpdateResult(updated, updatedByPreviousBlockType, chunks);
+    }
+
+    /**
+     * Get the number, size and ingest rate of the stored data blocks of each block type, without querying DB
+     * @return Statistics by block type
+     */
+    public Map<BlockTypeEnum, BlockTypeStats> getBlockTypeStats() {
+        return blockTypeStatistics.getStats();
+    }
+
+    /**
+     * Subscribe to the DataEnvelop saved with or updated to given blocktype, each pushed as a server-sent event
+     * once committed to DB
+     * @param blockType Block type
+     * @param lastEventId Last event id received before reconnecting, null to receive new DataEnvelop only
+     * @return Emitter of the events
+     */
+    public SseEmitter subscribeDataEnvelope(BlockTypeEnum blockType, Long lastEventId) {
+        log.info("Subscribe with blocktype: {}, last event id: {}", blockType, lastEventId);
+        return changeFeed.subscribe(blockType, lastEventId);
     }
 
 }
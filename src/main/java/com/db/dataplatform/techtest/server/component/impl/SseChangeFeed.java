@@ -0,0 +1,390 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.AsyncConfiguration;
+import com.db.dataplatform.techtest.server.ChangeFeedProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.ChangeFeed;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the data blocks saved into, or reclassified to, a block type to its subscribers as server-sent events.
+ * <p>
+ * Events are numbered by a sequence of this feed, in the order they are published, and sent with their number
+ * as event id. The last events of each block type are kept, so a subscriber reconnecting with Last-Event-ID is
+ * first sent the events after that id, then the live events. A subscriber whose Last-Event-ID is no longer kept,
+ * or was sent before a restart, is sent a reset event instead and is expected to query the block type again.
+ * <p>
+ * Publishers only append to a bounded buffer of each subscriber, events are written to the connections
+ * by the threads of the change feed executor. A subscriber whose buffer is full, or whose events cannot be
+ * handed to the executor, is disconnected rather than slowing down the publishers or the other subscribers,
+ * it resumes from its Last-Event-ID once it reconnects.
+ */
+@Slf4j
+@Component
+public class SseChangeFeed implements ChangeFeed {
+
+    public static final String METRIC_SUBSCRIBERS = "dataserver.changefeed.subscribers";
+    public static final String METRIC_EVICTIONS = "dataserver.changefeed.evictions";
+
+    public static final String EVENT_SAVED = "saved";
+    public static final String EVENT_RECLASSIFIED = "reclassified";
+    public static final String EVENT_RESET = "reset";
+
+    private final ChangeFeedProperties changeFeedProperties;
+    private final Executor senderExecutor;
+
+    private final Map<BlockTypeEnum, Topic> topics = new EnumMap<>(BlockTypeEnum.class);
+
+    /**
+     * Starts at the time the feed was created in microseconds, so the event ids of a previous run
+     * are lower than those of this run unless it published over a million events per second
+     */
+    private final AtomicLong sequence = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    private final Counter evictionCounter;
+
+    public SseChangeFeed(ChangeFeedProperties changeFeedProperties,
+                         @Qualifier(AsyncConfiguration.CHANGE_FEED_EXECUTOR) Executor senderExecutor,
+                         MeterRegistry meterRegistry) {
+        this.changeFeedProperties = changeFeedProperties;
+        this.senderExecutor = senderExecutor;
+        for (BlockTypeEnum blockType : BlockTypeEnum.values()) {
+            topics.put(blockType, new Topic(sequence.get()));
+        }
+
+        this.evictionCounter = Counter.builder(METRIC_EVICTIONS).register(meterRegistry);
+        Gauge.builder(METRIC_SUBSCRIBERS, this, SseChangeFeed::getSubscriberCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.close();
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the data blocks saved into or reclassified to the block type
+     * @param blockType Block type
+     * @param lastEventId Id of the last event received before reconnecting, null to receive new events only
+     * @return Emitter of the events, to be returned from the request handler
+     */
+    @Override
+    public SseEmitter subscribe(BlockTypeEnum blockType, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(changeFeedProperties.getTimeoutMs());
+        Subscriber subscriber = new Subscriber(blockType, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        // Registered together with reading the history, so every event is either replayed or buffered, once.
+        List<Event> replay;
+        Topic topic = topics.get(blockType);
+        synchronized (topic) {
+            topic.subscribers.add(subscriber);
+            topic.retaining = true;
+            replay = topic.eventsAfter(lastEventId);
+        }
+        try {
+            senderExecutor.execute(() -> subscriber.replay(replay));
+        } catch (RejectedExecutionException e) {
+            subscriber.close();
+            emitter.completeWithError(e);
+        }
+        log.info("Subscribed to block type {} from event id {}", blockType, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Events of the block type are kept for the resume window after its last subscriber disconnected.
+     * Once it answers false publishers skip the block type, so the events kept so far can no longer be resumed from.
+     * @param blockType Block type
+     * @return true if anyone subscribed to the block type or may still resume, publishers can skip preparing events otherwise
+     */
+    @Override
+    public boolean hasSubscribers(BlockTypeEnum blockType) {
+        Topic topic = topics.get(blockType);
+        if (!topic.subscribers.isEmpty()) {
+            return true;
+        }
+        synchronized (topic) {
+            if (!topic.subscribers.isEmpty()) {
+                return true;
+            }
+            if (topic.retaining && System.nanoTime() - topic.idleSinceNanos < TimeUnit.MILLISECONDS.toNanos(changeFeedProperties.getResumeWindowMs())) {
+                return true;
+            }
+            topic.skipped();
+            return false;
+        }
+    }
+
+    /**
+     * Publish a data block committed to DB
+     * @param envelope Data block
+     */
+    @Override
+    public void publishSaved(DataEnvelope envelope) {
+        publish(EVENT_SAVED, envelope);
+    }
+
+    /**
+     * Publish a data block whose new block type was committed to DB
+     * @param envelope Data block with its new block type
+     */
+    @Override
+    public void publishReclassified(DataEnvelope envelope) {
+        publish(EVENT_RECLASSIFIED, envelope);
+    }
+
+    private void publish(String name, DataEnvelope envelope) {
+        BlockTypeEnum blockType = envelope.getDataHeader().getBlockType();
+        if (blockType == null) {
+            return;
+        }
+        Topic topic = topics.get(blockType);
+        synchronized (topic) {
+            Event event = new Event(sequence.incrementAndGet(), name, envelope, MediaType.APPLICATION_JSON);
+            topic.append(event);
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private int getSubscriberCount() {
+        int count = 0;
+        for (Topic topic : topics.values()) {
+            count += topic.subscribers.size();
+        }
+        return count;
+    }
+
+    private static final class Event {
+
+        private final long id;
+        private final String name;
+        private final Object data;
+        private final MediaType mediaType;
+
+        private Event(long id, String name, Object data, MediaType mediaType) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.mediaType = mediaType;
+        }
+    }
+
+    /**
+     * Subscribers and last events of a block type, events are appended and subscribers registered under its lock
+     */
+    private final class Topic {
+
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Deque<Event> history = new ArrayDeque<>();
+
+        /**
+         * Id of the last event no longer kept, events up to it cannot be resumed from
+         */
+        private long trimmedUpTo;
+
+        /**
+         * Set while events are kept, from the first subscription until the resume window lapsed without subscribers
+         */
+        private boolean retaining;
+        private long idleSinceNanos;
+
+        private Topic(long trimmedUpTo) {
+            this.trimmedUpTo = trimmedUpTo;
+        }
+
+        private void append(Event event) {
+            history.addLast(event);
+            while (history.size() > changeFeedProperties.getHistorySize()) {
+                trimmedUpTo = history.removeFirst().id;
+            }
+        }
+
+        /**
+         * Forget the events kept, as publishers skip the block type from now on
+         */
+        private void skipped() {
+            if (retaining) {
+                retaining = false;
+                history.clear();
+                trimmedUpTo = sequence.incrementAndGet();
+            }
+        }
+
+        private List<Event> eventsAfter(Long lastEventId) {
+            if (lastEventId == null) {
+                return Collections.emptyList();
+            }
+            if (lastEventId < trimmedUpTo || lastEventId > sequence.get()) {
+                long resetId = history.isEmpty() ? trimmedUpTo : history.getLast().id;
+                return Collections.singletonList(new Event(resetId, EVENT_RESET, Long.toString(lastEventId), MediaType.TEXT_PLAIN));
+            }
+            List<Event> events = new ArrayList<>();
+            for (Event event : history) {
+                if (event.id > lastEventId) {
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+
+        private void remove(Subscriber subscriber) {
+            synchronized (this) {
+                if (subscribers.remove(subscriber) && subscribers.isEmpty()) {
+                    idleSinceNanos = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final BlockTypeEnum blockType;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> buffer;
+
+        /**
+         * Set while a sender thread writes to the connection, starting with the replay
+         */
+        private final AtomicBoolean sending = new AtomicBoolean(true);
+        private volatile boolean evicted;
+        private volatile boolean closed;
+
+        private Subscriber(BlockTypeEnum blockType, SseEmitter emitter) {
+            this.blockType = blockType;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(changeFeedProperties.getBufferSize());
+        }
+
+        private void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                evict();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // No sender thread left for it, nor is one writing to its connection.
+                    sending.set(false);
+                    evict();
+                }
+            }
+        }
+
+        /**
+         * Send the events kept after the last event id, or the reset event, then the buffered events
+         */
+        private void replay(List<Event> events) {
+            try {
+                for (Event event : events) {
+                    if (closed) {
+                        break;
+                    }
+                    send(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                sending.set(false);
+                failed(e);
+                return;
+            }
+            drain();
+        }
+
+        private void drain() {
+            try {
+                do {
+                    Event event;
+                    while (!closed && (event = buffer.poll()) != null) {
+                        send(event);
+                    }
+                    sending.set(false);
+                    // An event offered after the buffer was found empty but before sending was reset has no sender yet.
+                } while (!closed && !buffer.isEmpty() && sending.compareAndSet(false, true));
+            } catch (IOException | RuntimeException e) {
+                sending.set(false);
+                failed(e);
+                return;
+            }
+            // Evicted while this thread was writing, the eviction left completing the connection to it.
+            if (evicted && sending.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.id))
+                    .name(event.name)
+                    .data(event.data, event.mediaType));
+        }
+
+        /**
+         * Disconnect a subscriber that does not keep up. The connection is completed right away if no sender
+         * thread writes to it, otherwise by the sender thread once its write returns, as a write blocked on
+         * the slow connection holds the emitter.
+         */
+        private void evict() {
+            if (closed) {
+                return;
+            }
+            evicted = true;
+            close();
+            evictionCounter.increment();
+            log.warn("Disconnecting slow subscriber of block type {}, {} events buffered", blockType, buffer.size());
+            buffer.clear();
+            if (sending.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private void failed(Exception e) {
+            log.info("Subscriber of block type {} disconnected: {}", blockType, e.getMessage());
+            close();
+            emitter.completeWithError(e);
+        }
+
+        private void close() {
+            closed = true;
+            topics.get(blockType).remove(this);
+        }
+    }
+}
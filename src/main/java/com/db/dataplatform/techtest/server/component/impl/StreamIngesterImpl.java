@@ -0,0 +1,94 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.StreamIngestResult;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StreamIngester;
+import com.db.dataplatform.techtest.server.exception.MalformedDataStreamException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamIngesterImpl implements StreamIngester {
+
+    private final Server server;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final IngestProperties ingestProperties;
+
+    /**
+     * Read newline-delimited data blocks one at a time and persist them in chunks of bounded size,
+     * so memory use does not depend on the length of the stream.
+     * On a malformed record the data blocks read before it are persisted, then the ingest stops.
+     * @param inputStream NDJSON stream of ChecksummedDataEnvelope
+     * @return Number of data blocks received, persisted and rejected
+     * @throws MalformedDataStreamException if the stream contains malformed JSON
+     * @throws IOException if the stream cannot be read
+     */
+    @Override
+    public StreamIngestResult ingest(InputStream inputStream) throws IOException {
+        int chunkSize = ingestProperties.getStreamChunkSize();
+        List<ChecksummedDataEnvelope> chunk = new ArrayList<>(chunkSize);
+        long received = 0;
+        long persisted = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            while (parser.nextToken() != null) {
+                received++;
+                ChecksummedDataEnvelope envelope = objectMapper.readValue(parser, ChecksummedDataEnvelope.class);
+                if (!validator.validate(envelope).isEmpty()) {
+                    log.debug("Skipping invalid data block at record {}", received);
+                    continue;
+                }
+
+                chunk.add(envelope);
+                if (chunk.size() >= chunkSize) {
+                    persisted += saveChunk(chunk);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            if (!chunk.isEmpty()) {
+                persisted += saveChunk(chunk);
+            }
+            log.warn("Data stream malformed at record {}, {} data blocks persisted before it", received, persisted);
+            throw new MalformedDataStreamException("Malformed data block at record " + received
+                    + ", " + persisted + " data blocks before it have been saved", e);
+        }
+        if (!chunk.isEmpty()) {
+            persisted += saveChunk(chunk);
+        }
+
+        log.info("Data stream finished, {} of {} data blocks persisted", persisted, received);
+        return new StreamIngestResult(received, persisted, received - persisted);
+    }
+
+    /**
+     * Persist one chunk of data blocks in a single transaction
+     * @param chunk Data blocks with their checksum
+     * @return Number of data blocks persisted
+     */
+    private long saveChunk(List<ChecksummedDataEnvelope> chunk) {
+        long persisted = 0;
+        for (PushDataResult result : server.saveDataEnvelopes(chunk)) {
+            if (result.isChecksumPass() && !result.isNameConflict()) {
+                persisted++;
+            }
+        }
+        return persisted;
+    }
+}
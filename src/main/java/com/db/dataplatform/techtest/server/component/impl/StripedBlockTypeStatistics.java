@@ -0,0 +1,142 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.component.BlockTypeStatistics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.stats.SlidingWindowCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number and size of the stored data blocks of each block type, kept in striped counters updated by the writes
+ * so reading them never touches the DB. The counters are seeded from the DB once at startup.
+ */
+@Slf4j
+@Component
+public class StripedBlockTypeStatistics implements BlockTypeStatistics {
+
+    private static final int[] RATE_WINDOW_MINUTES = {1, 5, 15};
+
+    private final DataBodyService dataBodyServiceImpl;
+    private final Clock clock;
+
+    private final Map<BlockTypeEnum, Counters> counters = new EnumMap<>(BlockTypeEnum.class);
+
+    @Autowired
+    public StripedBlockTypeStatistics(DataBodyService dataBodyServiceImpl) {
+        this(dataBodyServiceImpl, Clock.systemUTC());
+    }
+
+    public StripedBlockTypeStatistics(DataBodyService dataBodyServiceImpl, Clock clock) {
+        this.dataBodyServiceImpl = dataBodyServiceImpl;
+        this.clock = clock;
+        int maxWindowSeconds = RATE_WINDOW_MINUTES[RATE_WINDOW_MINUTES.length - 1] * 60;
+        for (BlockTypeEnum blockType : BlockTypeEnum.values()) {
+            counters.put(blockType, new Counters(maxWindowSeconds));
+        }
+    }
+
+    /**
+     * Load the number and size of the data blocks already stored in DB
+     */
+    @PostConstruct
+    public void seed() {
+        for (BlockTypeTotals totals : dataBodyServiceImpl.getTotalsByBlockType()) {
+            Counters blockTypeCounters = counters.get(totals.getBlockType());
+            blockTypeCounters.count.add(totals.getCount());
+            blockTypeCounters.dataBodyLength.add(totals.getDataBodyLength() == null ? 0 : totals.getDataBodyLength());
+        }
+        log.info("Block type statistics seeded: {}", counters);
+    }
+
+    /**
+     * @param blockType Block type of a stored data block, ignored if null
+     * @param dataBodyLength Length of its data body
+     */
+    @Override
+    public void recordSaved(BlockTypeEnum blockType, long dataBodyLength) {
+        if (blockType == null) {
+            return;
+        }
+        Counters blockTypeCounters = counters.get(blockType);
+        blockTypeCounters.count.increment();
+        blockTypeCounters.dataBodyLength.add(dataBodyLength);
+        blockTypeCounters.ingested.add(clock.millis() / 1000, 1);
+    }
+
+    /**
+     * @param blockType Previous block type of the data blocks
+     * @param newBlockType New block type of the data blocks
+     * @param count Number of data blocks moved
+     * @param dataBodyLength Total length of their data bodies
+     */
+    @Override
+    public void recordMoved(BlockTypeEnum blockType, BlockTypeEnum newBlockType, long count, long dataBodyLength) {
+        if (blockType == newBlockType || count == 0) {
+            return;
+        }
+        counters.get(blockType).count.add(-count);
+        counters.get(blockType).dataBodyLength.add(-dataBodyLength);
+        counters.get(newBlockType).count.add(count);
+        counters.get(newBlockType).dataBodyLength.add(dataBodyLength);
+    }
+
+    /**
+     * Record data blocks moved without knowing their size, which is estimated from the average data body length
+     * of the previous block type
+     * @param blockType Previous block type of the data blocks
+     * @param newBlockType New block type of the data blocks
+     * @param count Number of data blocks moved
+     */
+    @Override
+    public void recordMoved(BlockTypeEnum blockType, BlockTypeEnum newBlockType, long count) {
+        Counters blockTypeCounters = counters.get(blockType);
+        long total = blockTypeCounters.count.sum();
+        long averageLength = total <= 0 ? 0 : blockTypeCounters.dataBodyLength.sum() / total;
+        recordMoved(blockType, newBlockType, count, averageLength * count);
+    }
+
+    /**
+     * @return Statistics of each block type
+     */
+    @Override
+    public Map<BlockTypeEnum, BlockTypeStats> getStats() {
+        long now = clock.millis() / 1000;
+        Map<BlockTypeEnum, BlockTypeStats> stats = new EnumMap<>(BlockTypeEnum.class);
+        for (Map.Entry<BlockTypeEnum, Counters> entry : counters.entrySet()) {
+            Counters blockTypeCounters = entry.getValue();
+            Map<String, Double> ingestRatePerSecond = new LinkedHashMap<>();
+            for (int minutes : RATE_WINDOW_MINUTES) {
+                ingestRatePerSecond.put(minutes + "m", (double) blockTypeCounters.ingested.sum(now, minutes * 60) / (minutes * 60));
+            }
+            stats.put(entry.getKey(), new BlockTypeStats(blockTypeCounters.count.sum(), blockTypeCounters.dataBodyLength.sum(), ingestRatePerSecond));
+        }
+        return stats;
+    }
+
+    private static final class Counters {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder dataBodyLength = new LongAdder();
+        private final SlidingWindowCounter ingested;
+
+        private Counters(int maxWindowSeconds) {
+            this.ingested = new SlidingWindowCounter(maxWindowSeconds);
+        }
+
+        @Override
+        public String toString() {
+            return count.sum() + " data blocks of " + dataBodyLength.sum() + " characters";
+        }
+    }
+}
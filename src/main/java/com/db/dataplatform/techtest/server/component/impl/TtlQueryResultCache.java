@@ -0,0 +1,170 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.QueryCacheProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.QueryResultCache;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the data blocks of each block type, evicted after a TTL and when the cached results
+ * hold more data blocks than configured, oldest result first.
+ * <p>
+ * Every invalidation bumps the version of the block type. A result is only cached if the version did not change
+ * while it was loaded, so a load racing with a write never caches data older than that write.
+ */
+@Slf4j
+@Component
+public class TtlQueryResultCache implements QueryResultCache {
+
+    public static final String METRIC_HITS = "dataserver.query.cache.hits";
+    public static final String METRIC_MISSES = "dataserver.query.cache.misses";
+    public static final String METRIC_EVICTIONS = "dataserver.query.cache.evictions";
+    public static final String METRIC_SIZE = "dataserver.query.cache.size";
+
+    private final QueryCacheProperties queryCacheProperties;
+    private final Clock clock;
+
+    private final Map<BlockTypeEnum, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<BlockTypeEnum, Long> versions = new EnumMap<>(BlockTypeEnum.class);
+    private int cachedDataEnvelopes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter expiredCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter invalidationCounter;
+
+    @Autowired
+    public TtlQueryResultCache(QueryCacheProperties queryCacheProperties, MeterRegistry meterRegistry) {
+        this(queryCacheProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    public TtlQueryResultCache(QueryCacheProperties queryCacheProperties, MeterRegistry meterRegistry, Clock clock) {
+        this.queryCacheProperties = queryCacheProperties;
+        this.clock = clock;
+        for (BlockTypeEnum blockType : BlockTypeEnum.values()) {
+            versions.put(blockType, 0L);
+        }
+
+        this.hitCounter = Counter.builder(METRIC_HITS).register(meterRegistry);
+        this.missCounter = Counter.builder(METRIC_MISSES).register(meterRegistry);
+        this.expiredCounter = Counter.builder(METRIC_EVICTIONS).tag("cause", "expired").register(meterRegistry);
+        this.sizeEvictionCounter = Counter.builder(METRIC_EVICTIONS).tag("cause", "size").register(meterRegistry);
+        this.invalidationCounter = Counter.builder(METRIC_EVICTIONS).tag("cause", "invalidated").register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, this, TtlQueryResultCache::getCachedDataEnvelopes).register(meterRegistry);
+    }
+
+    /**
+     * Get the data blocks of the block type, loading them if they are not cached or expired
+     * @param blockType Block type
+     * @param loader Loads the data blocks of the block type from DB
+     * @return Unmodifiable list of DataEnvelope
+     */
+    @Override
+    public List<DataEnvelope> get(BlockTypeEnum blockType, Function<BlockTypeEnum, List<DataEnvelope>> loader) {
+        if (!queryCacheProperties.isEnabled()) {
+            return loader.apply(blockType);
+        }
+
+        Entry entry = entries.get(blockType);
+        if (entry != null) {
+            if (clock.millis() - entry.loadedAt < queryCacheProperties.getTtlMs()) {
+                hitCounter.increment();
+                return entry.dataEnvelopes;
+            }
+            removeExpired(blockType, entry);
+        }
+
+        missCounter.increment();
+        long version = getVersion(blockType);
+        long loadedAt = clock.millis();
+        List<DataEnvelope> dataEnvelopes = Collections.unmodifiableList(loader.apply(blockType));
+        put(blockType, version, new Entry(dataEnvelopes, loadedAt));
+        return dataEnvelopes;
+    }
+
+    /**
+     * Drop the cached data blocks of the block type, to be called once a write of the block type is committed
+     * @param blockType Block type, nothing is invalidated if null
+     */
+    @Override
+    public synchronized void invalidate(BlockTypeEnum blockType) {
+        if (blockType == null) {
+            return;
+        }
+        versions.put(blockType, versions.get(blockType) + 1);
+        Entry removed = entries.remove(blockType);
+        if (removed != null) {
+            cachedDataEnvelopes -= removed.dataEnvelopes.size();
+            invalidationCounter.increment();
+        }
+    }
+
+    /**
+     * @param blockType Block type
+     * @return Number of times the block type was invalidated since startup
+     */
+    @Override
+    public synchronized long getVersion(BlockTypeEnum blockType) {
+        return versions.get(blockType);
+    }
+
+    public synchronized int getCachedDataEnvelopes() {
+        return cachedDataEnvelopes;
+    }
+
+    private synchronized void removeExpired(BlockTypeEnum blockType, Entry entry) {
+        if (entries.remove(blockType, entry)) {
+            cachedDataEnvelopes -= entry.dataEnvelopes.size();
+            expiredCounter.increment();
+        }
+    }
+
+    private synchronized void put(BlockTypeEnum blockType, long version, Entry entry) {
+        int maxDataEnvelopes = queryCacheProperties.getMaxDataEnvelopes();
+        if (versions.get(blockType) != version || entry.dataEnvelopes.size() > maxDataEnvelopes) {
+            return;
+        }
+
+        Entry previous = entries.put(blockType, entry);
+        cachedDataEnvelopes += entry.dataEnvelopes.size() - (previous == null ? 0 : previous.dataEnvelopes.size());
+
+        while (cachedDataEnvelopes > maxDataEnvelopes) {
+            BlockTypeEnum oldest = null;
+            for (Map.Entry<BlockTypeEnum, Entry> cached : entries.entrySet()) {
+                if (cached.getKey() != blockType && (oldest == null || cached.getValue().loadedAt < entries.get(oldest).loadedAt)) {
+                    oldest = cached.getKey();
+                }
+            }
+            Entry evicted = entries.remove(oldest);
+            cachedDataEnvelopes -= evicted.dataEnvelopes.size();
+            sizeEvictionCounter.increment();
+            log.debug("Evicted {} data blocks of {} from query cache", evicted.dataEnvelopes.size(), oldest);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<DataEnvelope> dataEnvelopes;
+        private final long loadedAt;
+
+        private Entry(List<DataEnvelope> dataEnvelopes, long loadedAt) {
+            this.dataEnvelopes = dataEnvelopes;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
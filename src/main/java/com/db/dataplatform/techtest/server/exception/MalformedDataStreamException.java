@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import java.io.IOException;
+
+/**
+ * A streamed push hit a malformed record, the data blocks read before it have been saved
+ */
+public class MalformedDataStreamException extends IOException {
+
+    public MalformedDataStreamException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,100 @@
+package com.db.dataplatform.techtest.server.latency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit adjusted with AIMD (additive increase, multiplicative decrease): every request completing
+ * within the latency threshold while the limit is in use raises the limit by 1/limit, i.e. by one per window
+ * of requests; a request failing with a server error or timeout, or slower than the threshold,
+ * multiplies the limit by the backoff ratio. Callers over the limit wait for a slot up to a timeout and are shed after it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String METRIC_LIMIT = "dataserver.concurrency.limit";
+    public static final String METRIC_IN_FLIGHT = "dataserver.concurrency.in.flight";
+    public static final String METRIC_QUEUED = "dataserver.concurrency.queued";
+    public static final String METRIC_SHED = "dataserver.concurrency.shed";
+    public static final String TAG_NAME = "name";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private final Counter shed;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdMs, double backoffRatio, MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder(METRIC_LIMIT, this, AdaptiveConcurrencyLimiter::getLimit).tag(TAG_NAME, name).register(meterRegistry);
+        Gauge.builder(METRIC_IN_FLIGHT, this, AdaptiveConcurrencyLimiter::getInFlight).tag(TAG_NAME, name).register(meterRegistry);
+        Gauge.builder(METRIC_QUEUED, this, AdaptiveConcurrencyLimiter::getQueued).tag(TAG_NAME, name).register(meterRegistry);
+        this.shed = Counter.builder(METRIC_SHED).tag(TAG_NAME, name).register(meterRegistry);
+    }
+
+    /**
+     * Take a slot under the current limit, waiting for one if the limit is reached
+     * @param timeoutMs Longest wait for a slot
+     * @return true if a slot was taken, the caller must then call release; false if shed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean acquire(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        queued++;
+        try {
+            while (inFlight >= (int) limit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    shed.increment();
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } finally {
+            queued--;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Give the slot back and adjust the limit to the outcome of the request
+     * @param latencyNanos Latency of the request
+     * @param dropped true if the request failed with a server error or timeout
+     */
+    public synchronized void release(long latencyNanos, boolean dropped) {
+        boolean limitInUse = inFlight * 2 >= limit;
+        inFlight--;
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (limitInUse) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+}
@@ -0,0 +1,54 @@
+package com.db.dataplatform.techtest.server.latency;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent requests, kept in a ring of fixed size so percentiles follow the live distribution
+ */
+public class LatencyHistogram {
+
+    private final long[] samples;
+    private int next;
+    private long count;
+
+    /**
+     * @param windowSize Number of most recent latencies the percentiles are calculated from
+     */
+    public LatencyHistogram(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    /**
+     * @param latencyMs Latency of a completed request in milliseconds
+     */
+    public synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        count++;
+    }
+
+    /**
+     * @return Number of latencies recorded so far, including those no longer in the window
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 1, e.g. 0.95
+     * @return Latency in milliseconds below which the given share of the latencies in the window fall,
+     * -1 if nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        long[] window;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            window = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(percentile * window.length) - 1;
+        return window[Math.max(0, Math.min(rank, window.length - 1))];
+    }
+}
@@ -0,0 +1,64 @@
+package com.db.dataplatform.techtest.server.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps data blocks between the API model and the persistence entities with plain getters and setters,
+ * instead of matching fields by reflection on every call. A field added to either side is to be mapped here.
+ */
+@Component
+public class DataEnvelopeMapper {
+
+    /**
+     * Map the DataEnvelope to a new data model, ids and timestamps are assigned when it is persisted
+     * @param envelope DataEnvelope
+     * @return DataBodyEntity with its DataHeaderEntity
+     */
+    public DataBodyEntity toDataBodyEntity(DataEnvelope envelope) {
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataHeaderEntity(toDataHeaderEntity(envelope.getDataHeader()));
+        dataBodyEntity.setDataBody(envelope.getDataBody().getDataBody());
+        return dataBodyEntity;
+    }
+
+    /**
+     * @param dataHeader DataHeader
+     * @return New DataHeaderEntity
+     */
+    public DataHeaderEntity toDataHeaderEntity(DataHeader dataHeader) {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName(dataHeader.getName());
+        dataHeaderEntity.setBlocktype(dataHeader.getBlockType());
+        return dataHeaderEntity;
+    }
+
+    /**
+     * @param dataBodyEntity DataBodyEntity with its DataHeaderEntity
+     * @return DataEnvelope
+     */
+    public DataEnvelope toDataEnvelope(DataBodyEntity dataBodyEntity) {
+        DataHeaderEntity dataHeaderEntity = dataBodyEntity.getDataHeaderEntity();
+        DataHeader dataHeader = new DataHeader(dataHeaderEntity.getName(), dataHeaderEntity.getBlocktype());
+        return new DataEnvelope(dataHeader, new DataBody(dataBodyEntity.getDataBody()));
+    }
+
+    /**
+     * @param dataBodyEntityList DataBodyEntity with their DataHeaderEntity
+     * @return DataEnvelope in the same order
+     */
+    public List<DataEnvelope> toDataEnvelopes(List<DataBodyEntity> dataBodyEntityList) {
+        List<DataEnvelope> dataEnvelopeList = new ArrayList<>(dataBodyEntityList.size());
+        for (DataBodyEntity dataBodyEntity : dataBodyEntityList) {
+            dataEnvelopeList.add(toDataEnvelope(dataBodyEntity));
+        }
+        return dataEnvelopeList;
+    }
+}
@@ -0,0 +1,36 @@
+package com.db.dataplatform.techtest.server.persistence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator reserving blocks of ids in memory with the pooled-lo optimizer,
+ * so a sequence round-trip is only needed once per block instead of once per insert.
+ * The block size is read from the "dataserver.id.block_size" Hibernate setting and must equal
+ * the INCREMENT BY of the database sequence in setup.sql. Otherwise pooled-lo hands out ids other instances
+ * also hand out, so Hibernate's increment size mismatch check is kept on: with the "exception" strategy
+ * configuring the generator fails if the sequence in the database has another increment.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator";
+    public static final String BLOCK_SIZE_SETTING = "dataserver.id.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_BLOCK_SIZE);
+
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
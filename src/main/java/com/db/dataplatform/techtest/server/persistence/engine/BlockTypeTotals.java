@@ -0,0 +1,23 @@
+package com.db.dataplatform.techtest.server.persistence.engine;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number and total data body length of the stored data blocks of a block type.
+ * Also the constructor expression of the DataStoreRepository query grouping by block type.
+ */
+@Getter
+@AllArgsConstructor
+public class BlockTypeTotals {
+
+    private final BlockTypeEnum blockType;
+
+    private final Long count;
+
+    /**
+     * Data body characters, null if none of the data blocks has a data body
+     */
+    private final Long dataBodyLength;
+}
@@ -0,0 +1,35 @@
+package com.db.dataplatform.techtest.server.persistence.engine;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A data block with its header as handed to and read from a StorageEngine, independent of how the engine stores it.
+ * Saving one without DATA_STORE_ID sets its ids and missing timestamps.
+ * Also the constructor expression of the DataStoreRepository queries reading whole data blocks.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataBlockRecord {
+
+    private Long dataStoreId;
+
+    private Long dataHeaderId;
+
+    private String name;
+
+    private BlockTypeEnum blockType;
+
+    private String dataBody;
+
+    private Instant createdTimestamp;
+
+    private Instant headerCreatedTimestamp;
+}
@@ -0,0 +1,36 @@
+package com.db.dataplatform.techtest.server.persistence.engine;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the data blocks behind DataBodyService and DataHeaderService, selected with "dataserver.storage.engine".
+ * Saving a data block without DATA_STORE_ID assigns its ids and timestamps, a name already stored for another
+ * data block, or a data block without name, block type or data body, is rejected with DataIntegrityViolationException
+ * before anything is written. Pages of a block type are in DATA_STORE_ID order,
+ * pages of a time range in CREATED_TIMESTAMP, DATA_STORE_ID order.
+ * Data blocks are exchanged as the types of this package, not as the entities of the JPA engine.
+ */
+public interface StorageEngine {
+    void save(DataBlockRecord dataBlock);
+    void saveAll(List<DataBlockRecord> dataBlocks);
+    void updateHeader(Long dataHeaderId, String name, BlockTypeEnum blockType);
+    List<DataBlockRecord> findByName(String name);
+    List<String> findExistingNames(Collection<String> names);
+    List<StoredDataBlock> findDataBlocksByBlockType(BlockTypeEnum blockType);
+    List<StoredDataBlock> findDataBlocksByNames(Collection<String> names, BlockTypeEnum blockType);
+    List<StoredDataBlock> findDataBlocksByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType);
+    List<DataBlockRecord> findPageByBlockType(BlockTypeEnum blockType, long after, int limit);
+    List<DataBlockRecord> findPageByCreatedTimestamp(Instant from, Instant to, BlockTypeEnum blockType, Instant afterTimestamp, long after, int limit);
+    void forEachByBlockType(BlockTypeEnum blockType, Consumer<DataBlockRecord> consumer);
+    void forEachNameAndDataBody(BiConsumer<String, String> consumer);
+    List<BlockTypeTotals> findTotalsByBlockType();
+    List<Long> findHeaderIdsByBlockTypeCreatedBefore(BlockTypeEnum blockType, Instant createdBefore, long after, int limit);
+    int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType, BlockTypeEnum newBlockType);
+    int updateBlockTypeByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType, BlockTypeEnum newBlockType);
+}
@@ -0,0 +1,20 @@
+package com.db.dataplatform.techtest.server.persistence.engine;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Name, block type and body of a stored data block, read without loading its entities.
+ * Also the constructor expression of the DataStoreRepository queries selecting these columns.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredDataBlock {
+
+    private final String name;
+
+    private final BlockTypeEnum blockType;
+
+    private final String dataBody;
+}
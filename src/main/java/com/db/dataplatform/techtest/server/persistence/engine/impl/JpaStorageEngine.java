@@ -0,0 +1,181 @@
+package com.db.dataplatform.techtest.server.persistence.engine.impl;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository.NameAndDataBody;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Stores the data blocks in DATA_STORE and DATA_HEADER with Spring Data JPA. Transactions are demarcated by
+ * the calling services, streaming reads need one to be open. Data blocks are written through entities
+ * built from the records, and read straight into records without loading entities.
+ */
+@Component
+@ConditionalOnProperty(prefix = "dataserver.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaStorageEngine implements StorageEngine {
+
+    private final DataStoreRepository dataStoreRepository;
+    private final DataHeaderRepository dataHeaderRepository;
+
+    @Override
+    public void save(DataBlockRecord dataBlock) {
+        saveAll(Collections.singletonList(dataBlock));
+    }
+
+    /**
+     * Save all data blocks, letting Hibernate group the inserts into JDBC batches
+     * @param dataBlocks Data blocks with their headers, new ones are given the ids and timestamps they were stored with
+     */
+    @Override
+    public void saveAll(List<DataBlockRecord> dataBlocks) {
+        List<DataBodyEntity> dataBodies = new ArrayList<>(dataBlocks.size());
+        for (DataBlockRecord dataBlock : dataBlocks) {
+            dataBodies.add(toDataBodyEntity(dataBlock));
+        }
+        List<DataBodyEntity> saved = dataStoreRepository.saveAll(dataBodies);
+        for (int i = 0; i < dataBlocks.size(); i++) {
+            DataBodyEntity dataBody = saved.get(i);
+            DataBlockRecord dataBlock = dataBlocks.get(i);
+            dataBlock.setDataStoreId(dataBody.getDataStoreId());
+            dataBlock.setDataHeaderId(dataBody.getDataHeaderEntity().getDataHeaderId());
+            dataBlock.setCreatedTimestamp(dataBody.getCreatedTimestamp());
+            dataBlock.setHeaderCreatedTimestamp(dataBody.getDataHeaderEntity().getCreatedTimestamp());
+        }
+    }
+
+    /**
+     * Set a new name and block type for a stored data block
+     * @param dataHeaderId DATA_HEADER_ID of the data block
+     * @param name New name
+     * @param blockType New block type
+     */
+    @Override
+    public void updateHeader(Long dataHeaderId, String name, BlockTypeEnum blockType) {
+        DataHeaderEntity dataHeader = dataHeaderId == null ? null : dataHeaderRepository.findById(dataHeaderId).orElse(null);
+        if (dataHeader == null) {
+            throw new IllegalArgumentException("No data block stored with DATA_HEADER_ID " + dataHeaderId);
+        }
+        dataHeader.setName(name);
+        dataHeader.setBlocktype(blockType);
+        dataHeaderRepository.save(dataHeader);
+    }
+
+    @Override
+    public List<DataBlockRecord> findByName(String name) {
+        return dataStoreRepository.findRecordsByName(name);
+    }
+
+    @Override
+    public List<String> findExistingNames(Collection<String> names) {
+        return dataHeaderRepository.findNamesIn(names);
+    }
+
+    /**
+     * Select the data blocks of the block type straight into StoredDataBlock, without loading entities
+     * into the persistence context
+     * @param blockType Block type
+     * @return List of StoredDataBlock
+     */
+    @Override
+    public List<StoredDataBlock> findDataBlocksByBlockType(BlockTypeEnum blockType) {
+        return dataStoreRepository.findDataBlocksByBlockType(blockType);
+    }
+
+    @Override
+    public List<StoredDataBlock> findDataBlocksByNames(Collection<String> names, BlockTypeEnum blockType) {
+        return dataStoreRepository.findDataBlocksByNamesAndBlockType(names, blockType);
+    }
+
+    @Override
+    public List<StoredDataBlock> findDataBlocksByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType) {
+        return dataStoreRepository.findDataBlocksByHeaderIdsAndBlockType(dataHeaderIds, blockType);
+    }
+
+    @Override
+    public List<DataBlockRecord> findPageByBlockType(BlockTypeEnum blockType, long after, int limit) {
+        return dataStoreRepository.findPageByBlockType(blockType, after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<DataBlockRecord> findPageByCreatedTimestamp(Instant from, Instant to, BlockTypeEnum blockType, Instant afterTimestamp, long after, int limit) {
+        if (blockType == null) {
+            return dataStoreRepository.findPageByCreatedTimestamp(from, to, afterTimestamp, after, PageRequest.of(0, limit));
+        }
+        return dataStoreRepository.findPageByCreatedTimestampAndBlockType(from, to, blockType, afterTimestamp, after, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Stream the data blocks of the block type straight into records, so the persistence context does not grow
+     * with the result
+     * @param blockType Block type
+     * @param consumer Receiver of each data block
+     */
+    @Override
+    public void forEachByBlockType(BlockTypeEnum blockType, Consumer<DataBlockRecord> consumer) {
+        try (Stream<DataBlockRecord> rows = dataStoreRepository.streamByBlockType(blockType)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void forEachNameAndDataBody(BiConsumer<String, String> consumer) {
+        try (Stream<NameAndDataBody> rows = dataStoreRepository.streamNameAndDataBody()) {
+            rows.forEach(row -> consumer.accept(row.getName(), row.getDataBody()));
+        }
+    }
+
+    @Override
+    public List<BlockTypeTotals> findTotalsByBlockType() {
+        return dataStoreRepository.findTotalsByBlockType();
+    }
+
+    @Override
+    public List<Long> findHeaderIdsByBlockTypeCreatedBefore(BlockTypeEnum blockType, Instant createdBefore, long after, int limit) {
+        return dataHeaderRepository.findIdsByBlockTypeCreatedBefore(blockType, createdBefore, after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        return dataHeaderRepository.updateBlockTypeByNames(names, blockType, newBlockType);
+    }
+
+    @Override
+    public int updateBlockTypeByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        return dataHeaderRepository.updateBlockTypeByIds(dataHeaderIds, blockType, newBlockType);
+    }
+
+    private static DataBodyEntity toDataBodyEntity(DataBlockRecord dataBlock) {
+        DataHeaderEntity dataHeader = new DataHeaderEntity();
+        dataHeader.setDataHeaderId(dataBlock.getDataHeaderId());
+        dataHeader.setName(dataBlock.getName());
+        dataHeader.setBlocktype(dataBlock.getBlockType());
+        dataHeader.setCreatedTimestamp(dataBlock.getHeaderCreatedTimestamp());
+
+        DataBodyEntity dataBody = new DataBodyEntity();
+        dataBody.setDataStoreId(dataBlock.getDataStoreId());
+        dataBody.setDataHeaderEntity(dataHeader);
+        dataBody.setDataBody(dataBlock.getDataBody());
+        dataBody.setCreatedTimestamp(dataBlock.getCreatedTimestamp());
+        return dataBody;
+    }
+}
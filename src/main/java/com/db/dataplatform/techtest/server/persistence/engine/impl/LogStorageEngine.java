@@ -0,0 +1,779 @@
+package com.db.dataplatform.techtest.server.persistence.engine.impl;
+
+import com.db.dataplatform.techtest.server.StorageProperties;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the data blocks in an append-only log file, with in-memory indexes on DATA_STORE_ID, DATA_HEADER_ID,
+ * name and block type rebuilt from the log at startup. Only the index entries are kept in memory,
+ * data bodies are read from the file when requested.
+ * <p>
+ * Writes are appended by one thread at a time and forced to disk before they return unless fsync is disabled,
+ * a write failing part way is truncated from the file. Records torn by a crash are truncated at startup.
+ * Updated data blocks are appended again, the log is not compacted, so it grows with every update.
+ * Pages by created timestamp scan all entries of the block type, there is no index on the timestamps.
+ * <p>
+ * File layout: header [magic][version], then records [length][crc32][payload], where the payload is either
+ * a whole data block or a new name and block type for the data block with the given DATA_HEADER_ID.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "dataserver.storage", name = "engine", havingValue = "log")
+public class LogStorageEngine implements StorageEngine {
+
+    private static final int MAGIC = 0x44534c47;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte SET_HEADER = 2;
+    private static final short NULL_LENGTH = -1;
+    private static final Comparator<Entry> CREATED_ORDER = Comparator.<Entry, Instant>comparing(entry -> entry.bodyCreatedTimestamp)
+            .thenComparingLong(entry -> entry.dataStoreId);
+
+    private final Path path;
+    private final boolean fsync;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile FileChannel channel;
+    private volatile boolean running;
+    private long writePosition;
+    private long lastDataStoreId;
+    private long lastDataHeaderId;
+
+    private final ConcurrentNavigableMap<Long, Entry> byDataStoreId = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, Entry> byDataHeaderId = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    private final Map<BlockTypeEnum, ConcurrentNavigableMap<Long, Entry>> byBlockType = new EnumMap<>(BlockTypeEnum.class);
+
+    public LogStorageEngine(StorageProperties storageProperties) {
+        this.path = Paths.get(storageProperties.getLog().getPath());
+        this.fsync = storageProperties.getLog().isFsync();
+        for (BlockTypeEnum blockType : BlockTypeEnum.values()) {
+            byBlockType.put(blockType, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Open the log file and rebuild the indexes from it
+     */
+    @PostConstruct
+    public void start() {
+        writeLock.lock();
+        try {
+            open();
+            running = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open storage log " + path, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Close the log file, everything written so far was forced to disk already unless fsync is disabled
+     * @throws IOException if the log file cannot be closed
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        writeLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            channel.force(false);
+            channel.close();
+            log.info("Storage log {} closed, {} data blocks in {} bytes", path, byDataStoreId.size(), writePosition);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void save(DataBlockRecord dataBlock) {
+        saveAll(Collections.singletonList(dataBlock));
+    }
+
+    /**
+     * Append all data blocks to the log with one write, new data blocks are assigned their ids once it succeeded
+     * @param dataBlocks Data blocks with their headers
+     */
+    @Override
+    public void saveAll(List<DataBlockRecord> dataBlocks) {
+        if (dataBlocks.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            checkRunning();
+            Map<String, Long> names = new HashMap<>();
+            List<byte[]> payloads = new ArrayList<>(dataBlocks.size());
+            long dataStoreId = lastDataStoreId;
+            long dataHeaderId = lastDataHeaderId;
+            Instant now = Instant.now();
+            for (DataBlockRecord dataBlock : dataBlocks) {
+                Entry existing = null;
+                if (dataBlock.getDataStoreId() != null) {
+                    existing = byDataStoreId.get(dataBlock.getDataStoreId());
+                    if (existing == null) {
+                        throw new IllegalArgumentException("No data block stored with DATA_STORE_ID " + dataBlock.getDataStoreId());
+                    }
+                }
+                long id = existing == null ? ++dataStoreId : existing.dataStoreId;
+                checkNotNull(dataBlock.getName(), dataBlock.getBlockType());
+                if (dataBlock.getDataBody() == null) {
+                    throw new DataIntegrityViolationException("Data block " + dataBlock.getName() + " needs a data body");
+                }
+                checkName(dataBlock.getName(), id, names);
+
+                if (dataBlock.getCreatedTimestamp() == null) {
+                    dataBlock.setCreatedTimestamp(now);
+                }
+                if (dataBlock.getHeaderCreatedTimestamp() == null) {
+                    dataBlock.setHeaderCreatedTimestamp(now);
+                }
+                payloads.add(encodePut(id, existing == null ? ++dataHeaderId : existing.dataHeaderId, dataBlock));
+            }
+
+            List<Long> recordPositions = append(payloads);
+            lastDataStoreId = dataStoreId;
+            lastDataHeaderId = dataHeaderId;
+
+            for (int i = 0; i < dataBlocks.size(); i++) {
+                DataBlockRecord dataBlock = dataBlocks.get(i);
+                Entry entry = decodePut(recordPositions.get(i), ByteBuffer.wrap(payloads.get(i)));
+                dataBlock.setDataStoreId(entry.dataStoreId);
+                dataBlock.setDataHeaderId(entry.dataHeaderId);
+                index(entry);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Append a new name and block type for a stored data block
+     * @param dataHeaderId DATA_HEADER_ID of a stored data block
+     * @param name New name
+     * @param blockType New block type
+     */
+    @Override
+    public void updateHeader(Long dataHeaderId, String name, BlockTypeEnum blockType) {
+        writeLock.lock();
+        try {
+            checkRunning();
+            Entry existing = dataHeaderId == null ? null : byDataHeaderId.get(dataHeaderId);
+            if (existing == null) {
+                throw new IllegalArgumentException("No data block stored with DATA_HEADER_ID " + dataHeaderId);
+            }
+            checkNotNull(name, blockType);
+            checkName(name, existing.dataStoreId, new HashMap<>());
+            append(Collections.singletonList(encodeSetHeader(existing.dataHeaderId, name, blockType)));
+            index(existing.withHeader(name, blockType));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<DataBlockRecord> findByName(String name) {
+        Entry entry = name == null ? null : byName.get(name);
+        return entry == null ? Collections.emptyList() : Collections.singletonList(toDataBlockRecord(entry));
+    }
+
+    @Override
+    public List<String> findExistingNames(Collection<String> names) {
+        List<String> existing = new ArrayList<>();
+        for (String name : names) {
+            if (name != null && byName.containsKey(name)) {
+                existing.add(name);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<StoredDataBlock> findDataBlocksByBlockType(BlockTypeEnum blockType) {
+        List<StoredDataBlock> dataBlocks = new ArrayList<>();
+        for (Entry entry : entries(blockType).values()) {
+            dataBlocks.add(toStoredDataBlock(entry));
+        }
+        return dataBlocks;
+    }
+
+    @Override
+    public List<StoredDataBlock> findDataBlocksByNames(Collection<String> names, BlockTypeEnum blockType) {
+        List<StoredDataBlock> dataBlocks = new ArrayList<>();
+        for (String name : names) {
+            Entry entry = name == null ? null : byName.get(name);
+            if (entry != null && blockType != null && entry.blockType == blockType) {
+                dataBlocks.add(toStoredDataBlock(entry));
+            }
+        }
+        return dataBlocks;
+    }
+
+    @Override
+    public List<StoredDataBlock> findDataBlocksByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType) {
+        List<StoredDataBlock> dataBlocks = new ArrayList<>();
+        for (Long dataHeaderId : dataHeaderIds) {
+            Entry entry = dataHeaderId == null ? null : byDataHeaderId.get(dataHeaderId);
+            if (entry != null && blockType != null && entry.blockType == blockType) {
+                dataBlocks.add(toStoredDataBlock(entry));
+            }
+        }
+        return dataBlocks;
+    }
+
+    @Override
+    public List<DataBlockRecord> findPageByBlockType(BlockTypeEnum blockType, long after, int limit) {
+        List<DataBlockRecord> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Entry entry : entries(blockType).tailMap(after, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(toDataBlockRecord(entry));
+        }
+        return page;
+    }
+
+    /**
+     * Page through the data blocks created in [from, to) following the given created timestamp and DATA_STORE_ID,
+     * keeping the first limit entries of the scan in a heap
+     */
+    @Override
+    public List<DataBlockRecord> findPageByCreatedTimestamp(Instant from, Instant to, BlockTypeEnum blockType, Instant afterTimestamp, long after, int limit) {
+        ConcurrentNavigableMap<Long, Entry> entries = blockType == null ? byDataStoreId : byBlockType.get(blockType);
+        PriorityQueue<Entry> first = new PriorityQueue<>(Math.min(limit, 1024) + 1, CREATED_ORDER.reversed());
+        for (Entry entry : entries.values()) {
+            Instant created = entry.bodyCreatedTimestamp;
+            if (created.isBefore(from) || !created.isBefore(to) || created.isBefore(afterTimestamp)
+                    || (created.equals(afterTimestamp) && entry.dataStoreId <= after)) {
+                continue;
+            }
+            if (first.size() < limit) {
+                first.add(entry);
+            } else if (limit > 0 && CREATED_ORDER.compare(entry, first.peek()) < 0) {
+                first.poll();
+                first.add(entry);
+            }
+        }
+
+        List<Entry> sorted = new ArrayList<>(first);
+        sorted.sort(CREATED_ORDER);
+        List<DataBlockRecord> page = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) {
+            page.add(toDataBlockRecord(entry));
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachByBlockType(BlockTypeEnum blockType, Consumer<DataBlockRecord> consumer) {
+        for (Entry entry : entries(blockType).values()) {
+            consumer.accept(toDataBlockRecord(entry));
+        }
+    }
+
+    @Override
+    public void forEachNameAndDataBody(BiConsumer<String, String> consumer) {
+        for (Entry entry : byDataStoreId.values()) {
+            consumer.accept(entry.name, readDataBody(entry));
+        }
+    }
+
+    /**
+     * Count the data blocks and their data body characters per block type from the index entries,
+     * without reading the data bodies
+     */
+    @Override
+    public List<BlockTypeTotals> findTotalsByBlockType() {
+        Map<BlockTypeEnum, Totals> totals = new HashMap<>();
+        for (Entry entry : byDataStoreId.values()) {
+            Totals blockTypeTotals = totals.computeIfAbsent(entry.blockType, Totals::new);
+            blockTypeTotals.count++;
+            if (entry.dataBodyLength >= 0) {
+                blockTypeTotals.dataBodyLength = (blockTypeTotals.dataBodyLength == null ? 0 : blockTypeTotals.dataBodyLength)
+                        + entry.dataBodyChars;
+            }
+        }
+        List<BlockTypeTotals> result = new ArrayList<>(totals.size());
+        for (Totals blockTypeTotals : totals.values()) {
+            result.add(new BlockTypeTotals(blockTypeTotals.blockType, blockTypeTotals.count, blockTypeTotals.dataBodyLength));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> findHeaderIdsByBlockTypeCreatedBefore(BlockTypeEnum blockType, Instant createdBefore, long after, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+        if (blockType == null) {
+            return ids;
+        }
+        for (Entry entry : byDataHeaderId.tailMap(after, false).values()) {
+            if (ids.size() == limit) {
+                break;
+            }
+            if (entry.blockType == blockType && entry.headerCreatedTimestamp.isBefore(createdBefore)) {
+                ids.add(entry.dataHeaderId);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        writeLock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (String name : names) {
+                Entry entry = name == null ? null : byName.get(name);
+                if (entry != null && blockType != null && entry.blockType == blockType) {
+                    entries.add(entry);
+                }
+            }
+            return updateBlockType(entries, newBlockType);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int updateBlockTypeByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        writeLock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (Long dataHeaderId : dataHeaderIds) {
+                Entry entry = dataHeaderId == null ? null : byDataHeaderId.get(dataHeaderId);
+                if (entry != null && blockType != null && entry.blockType == blockType) {
+                    entries.add(entry);
+                }
+            }
+            return updateBlockType(entries, newBlockType);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int updateBlockType(List<Entry> entries, BlockTypeEnum newBlockType) {
+        checkRunning();
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            payloads.add(encodeSetHeader(entry.dataHeaderId, entry.name, newBlockType));
+        }
+        append(payloads);
+        for (Entry entry : entries) {
+            index(entry.withHeader(entry.name, newBlockType));
+        }
+        return entries.size();
+    }
+
+    private void open() throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(channel, header, 0);
+            channel.force(false);
+            writePosition = HEADER_SIZE;
+            log.info("Storage log {} created", path);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a storage log of version " + VERSION);
+        }
+
+        long position = HEADER_SIZE;
+        long size = channel.size();
+        int records = 0;
+        channel.position(position);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        while (position + RECORD_HEADER_SIZE <= size) {
+            int length = input.readInt();
+            int crc = input.readInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            if (crc(payload) != crc) {
+                break;
+            }
+            replay(position, ByteBuffer.wrap(payload));
+            position += RECORD_HEADER_SIZE + length;
+            records++;
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of torn records from storage log {}", size - position, path);
+            channel.truncate(position);
+            channel.force(false);
+        }
+        writePosition = position;
+        log.info("Storage log {} opened, {} records replayed into {} data blocks", path, records, byDataStoreId.size());
+    }
+
+    private void replay(long recordPosition, ByteBuffer payload) {
+        byte type = payload.get(0);
+        if (type == PUT) {
+            Entry entry = decodePut(recordPosition, payload);
+            lastDataStoreId = Math.max(lastDataStoreId, entry.dataStoreId);
+            lastDataHeaderId = Math.max(lastDataHeaderId, entry.dataHeaderId);
+            index(entry);
+        } else if (type == SET_HEADER) {
+            payload.position(1);
+            long dataHeaderId = payload.getLong();
+            String name = readString(payload, payload.getShort());
+            String blockType = readString(payload, payload.getShort());
+            Entry existing = byDataHeaderId.get(dataHeaderId);
+            if (existing == null) {
+                log.warn("Skipping header of unknown DATA_HEADER_ID {} in storage log {}", dataHeaderId, path);
+                return;
+            }
+            index(existing.withHeader(name, blockType == null ? null : BlockTypeEnum.valueOf(blockType)));
+        } else {
+            throw new IllegalStateException("Unknown record type " + type + " at " + recordPosition + " in storage log " + path);
+        }
+    }
+
+    /**
+     * Append the records with one write and force them to disk, truncating the file back if that failed
+     * @return Position of each record in the file
+     */
+    private List<Long> append(List<byte[]> payloads) {
+        int size = 0;
+        for (byte[] payload : payloads) {
+            size += RECORD_HEADER_SIZE + payload.length;
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        List<Long> recordPositions = new ArrayList<>(payloads.size());
+        for (byte[] payload : payloads) {
+            recordPositions.add(writePosition + records.position());
+            records.putInt(payload.length).putInt(crc(payload)).put(payload);
+        }
+        records.flip();
+
+        try {
+            FileChannel channel = channel();
+            writeFully(channel, records, writePosition);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                channel().truncate(writePosition);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw new DataAccessResourceFailureException("Cannot append to storage log " + path, e);
+        }
+        writePosition += size;
+        return recordPositions;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("Storage log ends before position " + (start + buffer.limit()));
+            }
+        }
+    }
+
+    /**
+     * Reopen the log file if a thread interrupted while reading or writing it closed the channel for every thread
+     */
+    private FileChannel channel() throws IOException {
+        FileChannel current = channel;
+        if (current.isOpen()) {
+            return current;
+        }
+        writeLock.lock();
+        try {
+            if (!running) {
+                throw new ClosedChannelException();
+            }
+            if (!channel.isOpen()) {
+                log.warn("Reopening storage log {} closed by an interrupted thread", path);
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return channel;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reject a header the NOT NULL columns of DATA_HEADER would reject, before anything is appended
+     */
+    private static void checkNotNull(String name, BlockTypeEnum blockType) {
+        if (name == null || blockType == null) {
+            throw new DataIntegrityViolationException("Data block " + name + " of block type " + blockType + " needs a name and a block type");
+        }
+    }
+
+    /**
+     * Reject a name stored for another data block, or repeated within the same write
+     */
+    private void checkName(String name, long dataStoreId, Map<String, Long> names) {
+        Entry existing = byName.get(name);
+        Long pending = names.put(name, dataStoreId);
+        if ((existing != null && existing.dataStoreId != dataStoreId) || (pending != null && pending != dataStoreId)) {
+            throw new DataIntegrityViolationException("Data block name " + name + " is already stored");
+        }
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("Storage log " + path + " is not open");
+        }
+    }
+
+    /**
+     * Replace the index entries of the data block, called by the writing thread only
+     */
+    private void index(Entry entry) {
+        Entry previous = byDataStoreId.put(entry.dataStoreId, entry);
+        if (previous != null) {
+            if (previous.name != null && !previous.name.equals(entry.name)) {
+                byName.remove(previous.name, previous);
+            }
+            if (previous.blockType != null && previous.blockType != entry.blockType) {
+                byBlockType.get(previous.blockType).remove(previous.dataStoreId);
+            }
+        }
+        byDataHeaderId.put(entry.dataHeaderId, entry);
+        if (entry.name != null) {
+            byName.put(entry.name, entry);
+        }
+        if (entry.blockType != null) {
+            byBlockType.get(entry.blockType).put(entry.dataStoreId, entry);
+        }
+    }
+
+    private NavigableMap<Long, Entry> entries(BlockTypeEnum blockType) {
+        return blockType == null ? Collections.emptyNavigableMap() : byBlockType.get(blockType);
+    }
+
+    private DataBlockRecord toDataBlockRecord(Entry entry) {
+        return new DataBlockRecord(entry.dataStoreId, entry.dataHeaderId, entry.name, entry.blockType, readDataBody(entry),
+                entry.bodyCreatedTimestamp, entry.headerCreatedTimestamp);
+    }
+
+    private StoredDataBlock toStoredDataBlock(Entry entry) {
+        return new StoredDataBlock(entry.name, entry.blockType, readDataBody(entry));
+    }
+
+    private String readDataBody(Entry entry) {
+        if (entry.dataBodyLength < 0) {
+            return null;
+        }
+        ByteBuffer dataBody = ByteBuffer.allocate(entry.dataBodyLength);
+        try {
+            readFully(channel(), dataBody, entry.dataBodyPosition);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Cannot read data body " + entry.dataStoreId + " from storage log " + path, e);
+        }
+        return new String(dataBody.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * [type][DATA_STORE_ID][DATA_HEADER_ID][body created][header created][name][block type][data body characters][data body]
+     */
+    private static byte[] encodePut(long dataStoreId, long dataHeaderId, DataBlockRecord dataBlock) {
+        byte[] name = toBytes(dataBlock.getName());
+        byte[] blockType = toBytes(dataBlock.getBlockType() == null ? null : dataBlock.getBlockType().name());
+        byte[] body = toBytes(dataBlock.getDataBody());
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 8 + 12 + 12 + 2 + length(name) + 2 + length(blockType) + 4 + 4 + length(body));
+        payload.put(PUT).putLong(dataStoreId).putLong(dataHeaderId);
+        putInstant(payload, dataBlock.getCreatedTimestamp());
+        putInstant(payload, dataBlock.getHeaderCreatedTimestamp());
+        putString(payload, name);
+        putString(payload, blockType);
+        payload.putInt(dataBlock.getDataBody() == null ? 0 : dataBlock.getDataBody().length());
+        payload.putInt(body == null ? NULL_LENGTH : body.length);
+        if (body != null) {
+            payload.put(body);
+        }
+        return payload.array();
+    }
+
+    /**
+     * Decode the index entry of a data block, leaving its data body in the file
+     */
+    private static Entry decodePut(long recordPosition, ByteBuffer payload) {
+        payload.position(1);
+        long dataStoreId = payload.getLong();
+        long dataHeaderId = payload.getLong();
+        Instant bodyCreatedTimestamp = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+        Instant headerCreatedTimestamp = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+        String name = readString(payload, payload.getShort());
+        String blockType = readString(payload, payload.getShort());
+        int dataBodyChars = payload.getInt();
+        int dataBodyLength = payload.getInt();
+        long dataBodyPosition = recordPosition + RECORD_HEADER_SIZE + payload.position();
+        return new Entry(dataStoreId, dataHeaderId, name, blockType == null ? null : BlockTypeEnum.valueOf(blockType),
+                bodyCreatedTimestamp, headerCreatedTimestamp, dataBodyPosition, dataBodyLength, dataBodyChars);
+    }
+
+    /**
+     * [type][DATA_HEADER_ID][name][block type]
+     */
+    private static byte[] encodeSetHeader(long dataHeaderId, String name, BlockTypeEnum blockType) {
+        byte[] nameBytes = toBytes(name);
+        byte[] blockTypeBytes = toBytes(blockType == null ? null : blockType.name());
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 2 + length(nameBytes) + 2 + length(blockTypeBytes));
+        payload.put(SET_HEADER).putLong(dataHeaderId);
+        putString(payload, nameBytes);
+        putString(payload, blockTypeBytes);
+        return payload.array();
+    }
+
+    private static void putInstant(ByteBuffer payload, Instant instant) {
+        payload.putLong(instant.getEpochSecond()).putInt(instant.getNano());
+    }
+
+    private static void putString(ByteBuffer payload, byte[] value) {
+        payload.putShort(value == null ? NULL_LENGTH : (short) value.length);
+        if (value != null) {
+            payload.put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer payload, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Index entry of a stored data block, replaced as a whole when the data block changes
+     */
+    private static final class Entry {
+
+        private final long dataStoreId;
+        private final long dataHeaderId;
+        private final String name;
+        private final BlockTypeEnum blockType;
+        private final Instant bodyCreatedTimestamp;
+        private final Instant headerCreatedTimestamp;
+        private final long dataBodyPosition;
+        private final int dataBodyLength;
+        private final int dataBodyChars;
+
+        private Entry(long dataStoreId, long dataHeaderId, String name, BlockTypeEnum blockType,
+                      Instant bodyCreatedTimestamp, Instant headerCreatedTimestamp,
+                      long dataBodyPosition, int dataBodyLength, int dataBodyChars) {
+            this.dataStoreId = dataStoreId;
+            this.dataHeaderId = dataHeaderId;
+            this.name = name;
+            this.blockType = blockType;
+            this.bodyCreatedTimestamp = bodyCreatedTimestamp;
+            this.headerCreatedTimestamp = headerCreatedTimestamp;
+            this.dataBodyPosition = dataBodyPosition;
+            this.dataBodyLength = dataBodyLength;
+            this.dataBodyChars = dataBodyChars;
+        }
+
+        private Entry withHeader(String name, BlockTypeEnum blockType) {
+            return new Entry(dataStoreId, dataHeaderId, name, blockType, bodyCreatedTimestamp, headerCreatedTimestamp,
+                    dataBodyPosition, dataBodyLength, dataBodyChars);
+        }
+    }
+
+    /**
+     * Running totals of a block type while counting the index entries
+     */
+    private static final class Totals {
+
+        private final BlockTypeEnum blockType;
+        private long count;
+        private Long dataBodyLength;
+
+        private Totals(BlockTypeEnum blockType) {
+            this.blockType = blockType;
+        }
+    }
+}
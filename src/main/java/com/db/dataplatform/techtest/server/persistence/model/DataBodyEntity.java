@@ -1,7 +1,11 @@
 package com.db.dataplatform.techtest.server.persistence.model;
 
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -12,7 +16,6 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
 import javax.persistence.PrePersist;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import java.time.Instant;
 
@@ -23,7 +26,10 @@ import java.time.Instant;
 public class DataBodyEntity {
 
     @Id
-    @SequenceGenerator(name = "dataStoreSequenceGenerator", sequenceName = "SEQ_DATA_STORE", allocationSize = 1)
+    @GenericGenerator(
+            name = "dataStoreSequenceGenerator",
+            strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_DATA_STORE"))
     @GeneratedValue(generator = "dataStoreSequenceGenerator")
     @Column(name = "DATA_STORE_ID")
     private Long dataStoreId;
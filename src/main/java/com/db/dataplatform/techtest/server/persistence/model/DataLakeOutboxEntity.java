@@ -0,0 +1,60 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Payload waiting for delivery to the data lake, written in the same transaction as its data block
+ */
+@Entity
+@Table(name = "DATA_LAKE_OUTBOX")
+@Setter
+@Getter
+public class DataLakeOutboxEntity {
+
+    @Id
+    @GenericGenerator(
+            name = "dataLakeOutboxSequenceGenerator",
+            strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_DATA_LAKE_OUTBOX"))
+    @GeneratedValue(generator = "dataLakeOutboxSequenceGenerator")
+    @Column(name = "OUTBOX_ID")
+    private Long outboxId;
+
+    @Column(name = "PAYLOAD")
+    private String payload;
+
+    @Column(name = "ATTEMPTS")
+    private int attempts;
+
+    @Column(name = "NEXT_ATTEMPT_TIMESTAMP")
+    private Instant nextAttemptTimestamp;
+
+    @Column(name = "DELIVERED_TIMESTAMP")
+    private Instant deliveredTimestamp;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @PrePersist
+    public void setTimestamps() {
+        if (createdTimestamp == null) {
+            createdTimestamp = Instant.now();
+        }
+        if (nextAttemptTimestamp == null) {
+            nextAttemptTimestamp = createdTimestamp;
+        }
+    }
+}
@@ -1,10 +1,36 @@
 package com.db.dataplatform.techtest.server.persistence.repository;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface DataHeaderRepository extends JpaRepository<DataHeaderEntity, Long> {
 
+    @Query("select h.name from DataHeaderEntity h where h.name in :names")
+    List<String> findNamesIn(@Param("names") Collection<String> names);
+
+    @Modifying
+    @Query("update DataHeaderEntity h set h.blocktype = :newBlockType where h.name in :names and h.blocktype = :blockType")
+    int updateBlockTypeByNames(@Param("names") Collection<String> names, @Param("blockType") BlockTypeEnum blockType,
+                               @Param("newBlockType") BlockTypeEnum newBlockType);
+
+    @Query("select h.dataHeaderId from DataHeaderEntity h where h.blocktype = :blockType"
+            + " and h.createdTimestamp < :createdBefore and h.dataHeaderId > :after order by h.dataHeaderId")
+    List<Long> findIdsByBlockTypeCreatedBefore(@Param("blockType") BlockTypeEnum blockType, @Param("createdBefore") Instant createdBefore,
+                                               @Param("after") long after, Pageable pageable);
+
+    @Modifying
+    @Query("update DataHeaderEntity h set h.blocktype = :newBlockType where h.dataHeaderId in :ids and h.blocktype = :blockType")
+    int updateBlockTypeByIds(@Param("ids") Collection<Long> ids, @Param("blockType") BlockTypeEnum blockType,
+                             @Param("newBlockType") BlockTypeEnum newBlockType);
 }
@@ -0,0 +1,26 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DataLakeOutboxRepository extends JpaRepository<DataLakeOutboxEntity, Long> {
+    List<DataLakeOutboxEntity> findByDeliveredTimestampIsNullAndNextAttemptTimestampLessThanEqualOrderByOutboxId(Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("update DataLakeOutboxEntity o set o.deliveredTimestamp = :deliveredTimestamp where o.outboxId in :outboxIds")
+    int markDelivered(@Param("outboxIds") Collection<Long> outboxIds, @Param("deliveredTimestamp") Instant deliveredTimestamp);
+
+    @Modifying
+    @Query("delete from DataLakeOutboxEntity o where o.deliveredTimestamp < :before")
+    int deleteDeliveredBefore(@Param("before") Instant before);
+}
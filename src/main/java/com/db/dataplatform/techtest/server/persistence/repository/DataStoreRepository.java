@@ -1,14 +1,87 @@
 package com.db.dataplatform.techtest.server.persistence.repository;
 
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface DataStoreRepository extends JpaRepository<DataBodyEntity, Long> {
-    List<DataBodyEntity> findByDataHeaderEntity_Blocktype(BlockTypeEnum blocktype);
-    List<DataBodyEntity> findByDataHeaderEntity_Name(String name);
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord(b.dataStoreId, h.dataHeaderId,"
+            + " h.name, h.blocktype, b.dataBody, b.createdTimestamp, h.createdTimestamp)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where h.name = :name")
+    List<DataBlockRecord> findRecordsByName(@Param("name") String name);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock(h.name, h.blocktype, b.dataBody)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where h.blocktype = :blockType")
+    List<StoredDataBlock> findDataBlocksByBlockType(@Param("blockType") BlockTypeEnum blockType);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock(h.name, h.blocktype, b.dataBody)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where h.name in :names and h.blocktype = :blockType")
+    List<StoredDataBlock> findDataBlocksByNamesAndBlockType(@Param("names") Collection<String> names, @Param("blockType") BlockTypeEnum blockType);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock(h.name, h.blocktype, b.dataBody)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where h.dataHeaderId in :ids and h.blocktype = :blockType")
+    List<StoredDataBlock> findDataBlocksByHeaderIdsAndBlockType(@Param("ids") Collection<Long> ids, @Param("blockType") BlockTypeEnum blockType);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord(b.dataStoreId, h.dataHeaderId,"
+            + " h.name, h.blocktype, b.dataBody, b.createdTimestamp, h.createdTimestamp)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h"
+            + " where h.blocktype = :blockType and b.dataStoreId > :after order by b.dataStoreId")
+    List<DataBlockRecord> findPageByBlockType(@Param("blockType") BlockTypeEnum blockType, @Param("after") long after, Pageable pageable);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord(b.dataStoreId, h.dataHeaderId,"
+            + " h.name, h.blocktype, b.dataBody, b.createdTimestamp, h.createdTimestamp)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where b.createdTimestamp >= :from"
+            + " and b.createdTimestamp < :to and (b.createdTimestamp > :afterTimestamp"
+            + " or (b.createdTimestamp = :afterTimestamp and b.dataStoreId > :after))"
+            + " order by b.createdTimestamp, b.dataStoreId")
+    List<DataBlockRecord> findPageByCreatedTimestamp(@Param("from") Instant from, @Param("to") Instant to,
+                                                     @Param("afterTimestamp") Instant afterTimestamp,
+                                                     @Param("after") long after, Pageable pageable);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord(b.dataStoreId, h.dataHeaderId,"
+            + " h.name, h.blocktype, b.dataBody, b.createdTimestamp, h.createdTimestamp)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where b.createdTimestamp >= :from"
+            + " and b.createdTimestamp < :to and h.blocktype = :blockType and (b.createdTimestamp > :afterTimestamp"
+            + " or (b.createdTimestamp = :afterTimestamp and b.dataStoreId > :after))"
+            + " order by b.createdTimestamp, b.dataStoreId")
+    List<DataBlockRecord> findPageByCreatedTimestampAndBlockType(@Param("from") Instant from, @Param("to") Instant to,
+                                                                 @Param("blockType") BlockTypeEnum blockType,
+                                                                 @Param("afterTimestamp") Instant afterTimestamp,
+                                                                 @Param("after") long after, Pageable pageable);
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord(b.dataStoreId, h.dataHeaderId,"
+            + " h.name, h.blocktype, b.dataBody, b.createdTimestamp, h.createdTimestamp)"
+            + " from DataBodyEntity b join b.dataHeaderEntity h where h.blocktype = :blockType order by b.dataStoreId")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<DataBlockRecord> streamByBlockType(@Param("blockType") BlockTypeEnum blockType);
+
+    @Query("select h.name as name, b.dataBody as dataBody from DataBodyEntity b join b.dataHeaderEntity h")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<NameAndDataBody> streamNameAndDataBody();
+
+    @Query("select new com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals(h.blocktype, count(b), sum(length(b.dataBody)))"
+            + " from DataBodyEntity b join b.dataHeaderEntity h group by h.blocktype")
+    List<BlockTypeTotals> findTotalsByBlockType();
+
+    interface NameAndDataBody {
+        String getName();
+        String getDataBody();
+    }
 }
@@ -1,12 +1,26 @@
 package com.db.dataplatform.techtest.server.service;
 
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface DataBodyService {
     void saveDataBody(DataBodyEntity dataBody);
-    List<DataBodyEntity> getDataBodyByBlockType(BlockTypeEnum blockType);
+    void saveDataBodies(List<DataBodyEntity> dataBodies);
+    List<DataEnvelope> getDataEnvelopesByBlockType(BlockTypeEnum blockType);
+    List<DataEnvelope> getDataEnvelopesByNames(Collection<String> names, BlockTypeEnum blockType);
+    List<DataEnvelope> getDataEnvelopesByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType);
     List<DataBodyEntity> getDataBodyByBlockName(String blockName);
+    List<DataBodyEntity> getDataBodyPageByBlockType(BlockTypeEnum blockType, long after, int limit);
+    List<DataBodyEntity> getDataBodyPageByCreatedTimestamp(Instant from, Instant to, BlockTypeEnum blockType, Instant afterTimestamp, long after, int limit);
+    void forEachNameAndDataBody(BiConsumer<String, String> consumer);
+    List<BlockTypeTotals> getTotalsByBlockType();
+    void forEachDataBodyByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer);
 }
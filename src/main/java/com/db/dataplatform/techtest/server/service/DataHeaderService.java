@@ -1,7 +1,16 @@
 package com.db.dataplatform.techtest.server.service;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 public interface DataHeaderService {
-    void saveHeader(DataHeaderEntity entity);
+    void updateHeader(DataHeaderEntity entity);
+    List<String> getExistingNames(Collection<String> names);
+    int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType, BlockTypeEnum newBlockType);
+    List<Long> getIdsByBlockTypeCreatedBefore(BlockTypeEnum blockType, Instant createdBefore, long after, int limit);
+    int updateBlockTypeByIds(Collection<Long> ids, BlockTypeEnum blockType, BlockTypeEnum newBlockType);
 }
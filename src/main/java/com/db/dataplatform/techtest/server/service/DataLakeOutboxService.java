@@ -0,0 +1,14 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface DataLakeOutboxService {
+    List<DataLakeOutboxEntity> findPending(Instant now, int limit);
+    void markDelivered(Collection<Long> outboxIds, Instant deliveredTimestamp);
+    void saveRetries(List<DataLakeOutboxEntity> outboxEntities);
+    int purgeDelivered(Instant before);
+}
@@ -1,32 +1,227 @@
 package com.db.dataplatform.techtest.server.service.impl;
 
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataLakeOutboxRepository;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class DataBodyServiceImpl implements DataBodyService {
 
-    private final DataStoreRepository dataStoreRepository;
+    private final StorageEngine storageEngine;
+    private final DataLakeOutboxRepository dataLakeOutboxRepository;
 
+    /**
+     * Save the data body, queueing a new one for the data lake in the same transaction.
+     * The outbox row is flushed before the storage engine is called, so a failing outbox INSERT leaves nothing
+     * in a storage engine outside the transaction, and a storage engine rejecting the data body rolls the row back.
+     * Only a failure of the commit itself can still leave a data block in such an engine without its outbox row.
+     * @param dataBody Data body with its header
+     */
     @Override
+    @Transactional
     public void saveDataBody(DataBodyEntity dataBody) {
-        dataStoreRepository.save(dataBody);
+        if (dataBody.getDataStoreId() == null) {
+            dataLakeOutboxRepository.saveAndFlush(toOutboxEntity(dataBody));
+        }
+        DataBlockRecord dataBlock = toDataBlockRecord(dataBody);
+        storageEngine.save(dataBlock);
+        setStoredIds(dataBody, dataBlock);
     }
 
+    /**
+     * Save all data bodies in one transaction, new data bodies are queued for the data lake in the same transaction.
+     * The outbox rows are flushed before the storage engine is called, as in {@link #saveDataBody(DataBodyEntity)}.
+     * @param dataBodies Data bodies with their headers
+     */
     @Override
-    public List<DataBodyEntity> getDataBodyByBlockType(BlockTypeEnum blockType) {
-        return dataStoreRepository.findByDataHeaderEntity_Blocktype(blockType);
+    @Transactional
+    public void saveDataBodies(List<DataBodyEntity> dataBodies) {
+        List<DataLakeOutboxEntity> outboxEntities = new ArrayList<>(dataBodies.size());
+        for (DataBodyEntity dataBody : dataBodies) {
+            if (dataBody.getDataStoreId() == null) {
+                outboxEntities.add(toOutboxEntity(dataBody));
+            }
+        }
+        dataLakeOutboxRepository.saveAll(outboxEntities);
+        dataLakeOutboxRepository.flush();
+        List<DataBlockRecord> dataBlocks = new ArrayList<>(dataBodies.size());
+        for (DataBodyEntity dataBody : dataBodies) {
+            dataBlocks.add(toDataBlockRecord(dataBody));
+        }
+        storageEngine.saveAll(dataBlocks);
+        for (int i = 0; i < dataBodies.size(); i++) {
+            setStoredIds(dataBodies.get(i), dataBlocks.get(i));
+        }
+    }
+
+    private static DataLakeOutboxEntity toOutboxEntity(DataBodyEntity dataBody) {
+        DataLakeOutboxEntity outboxEntity = new DataLakeOutboxEntity();
+        outboxEntity.setPayload(dataBody.getDataBody());
+        return outboxEntity;
+    }
+
+    private static DataBlockRecord toDataBlockRecord(DataBodyEntity dataBody) {
+        DataHeaderEntity dataHeader = dataBody.getDataHeaderEntity();
+        return new DataBlockRecord(dataBody.getDataStoreId(), dataHeader.getDataHeaderId(), dataHeader.getName(), dataHeader.getBlocktype(),
+                dataBody.getDataBody(), dataBody.getCreatedTimestamp(), dataHeader.getCreatedTimestamp());
+    }
+
+    /**
+     * Copy the ids and timestamps the storage engine stored the data block with back into the caller's entity
+     */
+    private static void setStoredIds(DataBodyEntity dataBody, DataBlockRecord dataBlock) {
+        dataBody.setDataStoreId(dataBlock.getDataStoreId());
+        dataBody.setCreatedTimestamp(dataBlock.getCreatedTimestamp());
+        dataBody.getDataHeaderEntity().setDataHeaderId(dataBlock.getDataHeaderId());
+        dataBody.getDataHeaderEntity().setCreatedTimestamp(dataBlock.getHeaderCreatedTimestamp());
+    }
+
+    private static DataBodyEntity toDataBodyEntity(DataBlockRecord dataBlock) {
+        DataHeaderEntity dataHeader = new DataHeaderEntity();
+        dataHeader.setDataHeaderId(dataBlock.getDataHeaderId());
+        dataHeader.setName(dataBlock.getName());
+        dataHeader.setBlocktype(dataBlock.getBlockType());
+        dataHeader.setCreatedTimestamp(dataBlock.getHeaderCreatedTimestamp());
+
+        DataBodyEntity dataBody = new DataBodyEntity();
+        dataBody.setDataStoreId(dataBlock.getDataStoreId());
+        dataBody.setDataHeaderEntity(dataHeader);
+        dataBody.setDataBody(dataBlock.getDataBody());
+        dataBody.setCreatedTimestamp(dataBlock.getCreatedTimestamp());
+        return dataBody;
+    }
+
+    private static List<DataBodyEntity> toDataBodyEntities(List<DataBlockRecord> dataBlocks) {
+        List<DataBodyEntity> dataBodies = new ArrayList<>(dataBlocks.size());
+        for (DataBlockRecord dataBlock : dataBlocks) {
+            dataBodies.add(toDataBodyEntity(dataBlock));
+        }
+        return dataBodies;
+    }
+
+    /**
+     * Get the data blocks of the block type without loading entities into the persistence context
+     * @param blockType Block type
+     * @return List of DataEnvelope
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DataEnvelope> getDataEnvelopesByBlockType(BlockTypeEnum blockType) {
+        return toDataEnvelopes(storageEngine.findDataBlocksByBlockType(blockType));
+    }
+
+    /**
+     * Get the data blocks with the given names that are of the block type, without loading entities
+     * @param names Data block names, at most 1000
+     * @param blockType Block type
+     * @return List of DataEnvelope
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DataEnvelope> getDataEnvelopesByNames(Collection<String> names, BlockTypeEnum blockType) {
+        return toDataEnvelopes(storageEngine.findDataBlocksByNames(names, blockType));
+    }
+
+    /**
+     * Get the data blocks with the given DATA_HEADER_IDs that are of the block type, without loading entities
+     * @param dataHeaderIds DATA_HEADER_IDs, at most 1000
+     * @param blockType Block type
+     * @return List of DataEnvelope
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DataEnvelope> getDataEnvelopesByHeaderIds(Collection<Long> dataHeaderIds, BlockTypeEnum blockType) {
+        return toDataEnvelopes(storageEngine.findDataBlocksByHeaderIds(dataHeaderIds, blockType));
+    }
+
+    private static List<DataEnvelope> toDataEnvelopes(List<StoredDataBlock> dataBlocks) {
+        List<DataEnvelope> dataEnvelopes = new ArrayList<>(dataBlocks.size());
+        for (StoredDataBlock dataBlock : dataBlocks) {
+            dataEnvelopes.add(new DataEnvelope(dataBlock.getName(), dataBlock.getBlockType(), dataBlock.getDataBody()));
+        }
+        return dataEnvelopes;
     }
 
     @Override
     public List<DataBodyEntity> getDataBodyByBlockName(String blockName) {
-        return dataStoreRepository.findByDataHeaderEntity_Name(blockName);
+        return toDataBodyEntities(storageEngine.findByName(blockName));
+    }
+
+    /**
+     * Get the data bodies of the block type following the given DATA_STORE_ID, in DATA_STORE_ID order
+     * @param blockType Block type
+     * @param after DATA_STORE_ID of the last data body of the previous page, 0 for the first page
+     * @param limit Maximum number of data bodies
+     * @return Data bodies with their headers
+     */
+    @Override
+    public List<DataBodyEntity> getDataBodyPageByBlockType(BlockTypeEnum blockType, long after, int limit) {
+        return toDataBodyEntities(storageEngine.findPageByBlockType(blockType, after, limit));
+    }
+
+    /**
+     * Get the data bodies created in the time range following the given CREATED_TIMESTAMP and DATA_STORE_ID,
+     * in CREATED_TIMESTAMP, DATA_STORE_ID order
+     * @param from Inclusive lower bound of CREATED_TIMESTAMP
+     * @param to Exclusive upper bound of CREATED_TIMESTAMP
+     * @param blockType Block type, null for all block types
+     * @param afterTimestamp CREATED_TIMESTAMP of the last data body of the previous page, from for the first page
+     * @param after DATA_STORE_ID of the last data body of the previous page, 0 for the first page
+     * @param limit Maximum number of data bodies
+     * @return Data bodies with their headers
+     */
+    @Override
+    public List<DataBodyEntity> getDataBodyPageByCreatedTimestamp(Instant from, Instant to, BlockTypeEnum blockType, Instant afterTimestamp, long after, int limit) {
+        return toDataBodyEntities(storageEngine.findPageByCreatedTimestamp(from, to, blockType, afterTimestamp, after, limit));
+    }
+
+    /**
+     * Stream the name and body of every stored data block without loading the entities
+     * @param consumer Receiver of name and data body
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachNameAndDataBody(BiConsumer<String, String> consumer) {
+        storageEngine.forEachNameAndDataBody(consumer);
+    }
+
+    /**
+     * Get the number and total data body length of the stored data blocks of each block type
+     * @return Totals of the block types having data blocks
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BlockTypeTotals> getTotalsByBlockType() {
+        return storageEngine.findTotalsByBlockType();
+    }
+
+    /**
+     * Stream the data bodies of the block type in DATA_STORE_ID order, without holding the whole result in memory
+     * @param blockType Block type
+     * @param consumer Receiver of each data body with its header
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachDataBodyByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer) {
+        storageEngine.forEachByBlockType(blockType, dataBlock -> consumer.accept(toDataBodyEntity(dataBlock)));
     }
 }
@@ -1,18 +1,85 @@
 package com.db.dataplatform.techtest.server.service.impl;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
-import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class DataHeaderServiceImpl implements com.db.dataplatform.techtest.server.service.DataHeaderService {
 
-    private final DataHeaderRepository dataHeaderRepository;
+    private final StorageEngine storageEngine;
+
+    /**
+     * Store a new name and block type for a stored data block. Headers are inserted with their data body
+     * by DataBodyService, not on their own.
+     * @param entity Header with the DATA_HEADER_ID of a stored data block
+     * @throws IllegalArgumentException if the header has no DATA_HEADER_ID or none is stored with it
+     */
+    @Override
+    @Transactional
+    public void updateHeader(DataHeaderEntity entity) {
+        if (entity.getDataHeaderId() == null) {
+            throw new IllegalArgumentException("Data header " + entity.getName() + " is not stored, it has no DATA_HEADER_ID");
+        }
+        storageEngine.updateHeader(entity.getDataHeaderId(), entity.getName(), entity.getBlocktype());
+    }
+
+    /**
+     * Get the names already stored for a data block, with a single SELECT in DB
+     * @param names Data block names
+     * @return Names of the given ones that are stored, in no particular order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getExistingNames(Collection<String> names) {
+        return storageEngine.findExistingNames(names);
+    }
+
+    /**
+     * Move the data blocks with the given names from one block type to another, with a single UPDATE in DB
+     * @param names Data block names
+     * @param blockType Current block type, data blocks of other block types are left unchanged
+     * @param newBlockType New block type
+     * @return Number of data blocks updated
+     */
+    @Override
+    @Transactional
+    public int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        return storageEngine.updateBlockTypeByNames(names, blockType, newBlockType);
+    }
+
+    /**
+     * Get the DATA_HEADER_ID of data blocks of the block type created before the given time
+     * @param blockType Block type
+     * @param createdBefore Exclusive upper bound of CREATED_TIMESTAMP
+     * @param after Exclusive lower bound of DATA_HEADER_ID, 0 for the first chunk
+     * @param limit Maximum number of ids
+     * @return Ids in ascending order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> getIdsByBlockTypeCreatedBefore(BlockTypeEnum blockType, Instant createdBefore, long after, int limit) {
+        return storageEngine.findHeaderIdsByBlockTypeCreatedBefore(blockType, createdBefore, after, limit);
+    }
 
+    /**
+     * Move the data blocks with the given DATA_HEADER_ID from one block type to another, with a single UPDATE in DB
+     * @param ids DATA_HEADER_ID of the data blocks
+     * @param blockType Current block type, data blocks updated since their ids were read are left unchanged
+     * @param newBlockType New block type
+     * @return Number of data blocks updated
+     */
     @Override
-    public void saveHeader(DataHeaderEntity entity) {
-        dataHeaderRepository.save(entity);
+    @Transactional
+    public int updateBlockTypeByIds(Collection<Long> ids, BlockTypeEnum blockType, BlockTypeEnum newBlockType) {
+        return storageEngine.updateBlockTypeByHeaderIds(ids, blockType, newBlockType);
     }
 }
@@ -0,0 +1,55 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataLakeOutboxRepository;
+import com.db.dataplatform.techtest.server.service.DataLakeOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DataLakeOutboxServiceImpl implements DataLakeOutboxService {
+
+    private final DataLakeOutboxRepository dataLakeOutboxRepository;
+
+    /**
+     * Get the oldest payloads not delivered yet and due for an attempt
+     * @param now Current time
+     * @param limit Maximum number of payloads
+     * @return Pending payloads in the order they were written
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DataLakeOutboxEntity> findPending(Instant now, int limit) {
+        return dataLakeOutboxRepository.findByDeliveredTimestampIsNullAndNextAttemptTimestampLessThanEqualOrderByOutboxId(
+                now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional
+    public void markDelivered(Collection<Long> outboxIds, Instant deliveredTimestamp) {
+        dataLakeOutboxRepository.markDelivered(outboxIds, deliveredTimestamp);
+    }
+
+    /**
+     * Save the attempt count and next attempt time of payloads that could not be delivered
+     * @param outboxEntities Payloads
+     */
+    @Override
+    @Transactional
+    public void saveRetries(List<DataLakeOutboxEntity> outboxEntities) {
+        dataLakeOutboxRepository.saveAll(outboxEntities);
+    }
+
+    @Override
+    @Transactional
+    public int purgeDelivered(Instant before) {
+        return dataLakeOutboxRepository.deleteDeliveredBefore(before);
+    }
+}
@@ -0,0 +1,56 @@
+package com.db.dataplatform.techtest.server.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events counted per second in a ring of one-second buckets, so the number of events over any window up to
+ * the ring size can be summed without keeping the individual events
+ */
+public class SlidingWindowCounter {
+
+    private final AtomicLongArray counts;
+    private final AtomicLongArray seconds;
+
+    /**
+     * @param maxWindowSeconds Longest window the events can be summed over
+     */
+    public SlidingWindowCounter(int maxWindowSeconds) {
+        this.counts = new AtomicLongArray(maxWindowSeconds);
+        this.seconds = new AtomicLongArray(maxWindowSeconds);
+    }
+
+    /**
+     * @param epochSecond Second the events happened in
+     * @param events Number of events
+     */
+    public void add(long epochSecond, long events) {
+        int bucket = (int) (epochSecond % counts.length());
+        if (seconds.get(bucket) != epochSecond) {
+            synchronized (this) {
+                // The bucket still holds a second that left the ring, start it over for this second.
+                if (seconds.get(bucket) != epochSecond) {
+                    counts.set(bucket, 0);
+                    seconds.set(bucket, epochSecond);
+                }
+            }
+        }
+        counts.addAndGet(bucket, events);
+    }
+
+    /**
+     * @param epochSecond Current second
+     * @param windowSeconds Window length, at most the ring size
+     * @return Number of events in the window ending with the current second
+     */
+    public long sum(long epochSecond, int windowSeconds) {
+        int window = Math.min(windowSeconds, counts.length());
+        long sum = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            long second = seconds.get(bucket);
+            if (second > epochSecond - window && second <= epochSecond) {
+                sum += counts.get(bucket);
+            }
+        }
+        return sum;
+    }
+}
@@ -1,4 +1,4 @@
-create sequence if not exists SEQ_DATA_HEADER;
+create sequence if not exists SEQ_DATA_HEADER start with 1 increment by 50;
 
 drop table if exists DATA_HEADER;
 
@@ -12,7 +12,7 @@ create table DATA_HEADER
     CONSTRAINT UK_DATA_HEADER UNIQUE (NAME)
 );
 
-create sequence if not exists SEQ_DATA_STORE;
+create sequence if not exists SEQ_DATA_STORE start with 1 increment by 50;
 
 drop table if exists DATA_STORE;
 
@@ -24,4 +24,27 @@ create table DATA_STORE
     CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
     CONSTRAINT PK_DATA_STORE PRIMARY KEY (DATA_STORE_ID),
     CONSTRAINT FK_DS_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID)
-);
\ No newline at end of file
+);
+
+create sequence if not exists SEQ_DATA_LAKE_OUTBOX start with 1 increment by 50;
+
+drop table if exists DATA_LAKE_OUTBOX;
+
+create table DATA_LAKE_OUTBOX
+(
+    OUTBOX_ID               NUMBER NOT NULL,
+    PAYLOAD                 VARCHAR2(1000 CHAR) NOT NULL,
+    ATTEMPTS                NUMBER NOT NULL,
+    NEXT_ATTEMPT_TIMESTAMP  TIMESTAMP (6) NOT NULL,
+    DELIVERED_TIMESTAMP     TIMESTAMP (6),
+    CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
+    CONSTRAINT PK_DATA_LAKE_OUTBOX PRIMARY KEY (OUTBOX_ID)
+);
+
+create index IX_DATA_LAKE_OUTBOX_PENDING on DATA_LAKE_OUTBOX (DELIVERED_TIMESTAMP, NEXT_ATTEMPT_TIMESTAMP);
+
+create index IX_DATA_STORE_HEADER on DATA_STORE (DATA_HEADER_ID);
+
+create index IX_DATA_HEADER_BLOCKTYPE on DATA_HEADER (BLOCKTYPE);
+
+create index IX_DATA_STORE_CREATED on DATA_STORE (CREATED_TIMESTAMP, DATA_STORE_ID);
@@ -4,6 +4,7 @@ import com.db.dataplatform.techtest.server.api.model.DataBody;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 
@@ -30,6 +31,10 @@ public class TestDataHelper {
         return dataBodyEntity;
     }
 
+    public static DataBlockRecord createTestDataBlockRecord(Instant expectedTimestamp) {
+        return new DataBlockRecord(null, null, TEST_NAME, BlockTypeEnum.BLOCKTYPEA, DUMMY_DATA, null, expectedTimestamp);
+    }
+
     public static DataEnvelope createTestDataEnvelopeApiObject() {
         DataBody dataBody = new DataBody(DUMMY_DATA);
         DataHeader dataHeader = new DataHeader(TEST_NAME, BlockTypeEnum.BLOCKTYPEA);
@@ -0,0 +1,145 @@
+package com.db.dataplatform.techtest.api;
+
+import com.db.dataplatform.techtest.server.api.AdmissionControlFilter;
+import com.db.dataplatform.techtest.server.api.AdmissionControlProperties;
+import com.db.dataplatform.techtest.server.api.AdmissionLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdmissionControlFilterTests {
+
+    private static final String PUSHDATA = "/dataserver/pushdata";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Before
+    public void setup() {
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+        properties.setMaxInFlight(1);
+        properties.setMaxQueued(0);
+        properties.setRetryAfterSeconds(2);
+
+        meterRegistry = new SimpleMeterRegistry();
+        admissionControlFilter = new AdmissionControlFilter(properties, meterRegistry);
+    }
+
+    @Test
+    public void shouldAdmitRequestWithinLimit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        admissionControlFilter.doFilter(new MockHttpServletRequest("POST", PUSHDATA), response, filterChain);
+
+        assertThat(filterChain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(meterRegistry.get(AdmissionLimiter.METRIC_IN_FLIGHT).gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRejectRequestWhenSaturated() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocking = executor.submit(() -> {
+                admissionControlFilter.doFilter(new MockHttpServletRequest("POST", PUSHDATA), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                return null;
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain filterChain = new MockFilterChain();
+            admissionControlFilter.doFilter(new MockHttpServletRequest("POST", PUSHDATA), response, filterChain);
+
+            assertThat(filterChain.getRequest()).isNull();
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+            assertThat(meterRegistry.get(AdmissionLimiter.METRIC_REJECTED).tag(AdmissionLimiter.TAG_ENDPOINT, PUSHDATA)
+                    .counter().count()).isEqualTo(1);
+
+            release.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldLimitEachEndpointSeparately() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocking = executor.submit(() -> {
+                admissionControlFilter.doFilter(new MockHttpServletRequest("POST", PUSHDATA), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                return null;
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain filterChain = new MockFilterChain();
+            admissionControlFilter.doFilter(new MockHttpServletRequest("POST", PUSHDATA + "/batch"), response, filterChain);
+
+            assertThat(filterChain.getRequest()).isNotNull();
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+
+            release.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldFitDefaultLimitsIntoDefaultThreadPool() {
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+
+        properties.checkFitsThreadPool(new ServerProperties().getTomcat().getThreads().getMax());
+
+        assertThat(properties.getMaxThreadsHeld()).isLessThan(new ServerProperties().getTomcat().getThreads().getMax());
+    }
+
+    @Test
+    public void shouldRejectLimitsHoldingEveryServletThread() {
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+        properties.setMaxInFlight(64);
+        properties.setMaxQueued(128);
+
+        assertThatThrownBy(() -> properties.checkFitsThreadPool(200))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("576");
+    }
+}
@@ -2,17 +2,26 @@ package com.db.dataplatform.techtest.api.controller;
 
 import com.db.dataplatform.techtest.TestDataHelper;
 import com.db.dataplatform.techtest.server.api.controller.ServerController;
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateRequest;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.StreamIngestResult;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StreamIngester;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
@@ -20,18 +29,31 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.util.UriTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -39,12 +61,21 @@ import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standal
 public class ServerControllerComponentTest {
 
 	public static final String URI_PUSHDATA = "http://localhost:8090/dataserver/pushdata";
+	public static final String URI_PUSHDATA_BATCH = "http://localhost:8090/dataserver/pushdata/batch";
+	public static final String URI_PUSHDATA_STREAM = "http://localhost:8090/dataserver/pushdata/stream";
+	public static final String URI_GETDATA_BY_TIME = "http://localhost:8090/dataserver/data";
 	public static final UriTemplate URI_GETDATA = new UriTemplate("http://localhost:8090/dataserver/data/{blockType}");
+	public static final String TEST_ETAG = "W/\"BLOCKTYPEA-1-0\"";
+	public static final String URI_STATS = "http://localhost:8090/dataserver/stats";
+	public static final String URI_UPDATE_BULK = "http://localhost:8090/dataserver/update/bulk";
 	public static final UriTemplate URI_PATCHDATA = new UriTemplate("http://localhost:8090/dataserver/update/{name}/{newBlockType}");
 
 	@Mock
 	private Server serverMock;
 
+	@Mock
+	private StreamIngester streamIngesterMock;
+
 	private DataEnvelope testDataEnvelope;
 	private DataEnvelope testDataEnvelopeWithEmptyName;
 	private ObjectMapper objectMapper;
@@ -53,12 +84,12 @@ public class ServerControllerComponentTest {
 
 	@Before
 	public void setUp() throws NoSuchAlgorithmException, IOException {
-		serverController = new ServerController(serverMock);
-
-		mockMvc = standaloneSetup(serverController).build();
 		objectMapper = Jackson2ObjectMapperBuilder
 				.json()
 				.build();
+		serverController = new ServerController(serverMock, streamIngesterMock, objectMapper);
+
+		mockMvc = standaloneSetup(serverController).build();
 
 		testDataEnvelope = TestDataHelper.createTestDataEnvelopeApiObject();
 		testDataEnvelopeWithEmptyName = TestDataHelper.createTestDataEnvelopeApiObjectWithEmptyName();
@@ -75,8 +106,6 @@ public class ServerControllerComponentTest {
 
 	@Test
 	public void testPushDataPostCallWorksAsExpected() throws Exception {
-		when(serverMock.saveDataLake(testDataEnvelope.getDataBody().getDataBody())).thenReturn(CompletableFuture.completedFuture(HttpStatus.OK));
-
 		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
 
 		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
@@ -91,35 +120,139 @@ public class ServerControllerComponentTest {
 	}
 
 	@Test
-	public void testPushDataPostCallWorksAsExpectedWhenDataLakeTimeout() throws Exception {
-		when(serverMock.saveDataLake(testDataEnvelope.getDataBody().getDataBody())).thenReturn(CompletableFuture.completedFuture(HttpStatus.GATEWAY_TIMEOUT));
-
-		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+	public void testPushDataPostCallWithEmptyNameDataEnvelope() throws Exception {
+		String testDataEnvelopeWithEmptyNameJson = objectMapper.writeValueAsString(testDataEnvelopeWithEmptyName);
 
 		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
-						.header("Content-MD5", DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody()))
-						.content(testDataEnvelopeJson)
+						.header("Content-MD5", DigestUtils.md5Hex(testDataEnvelopeWithEmptyName.getDataBody().getDataBody()))
+						.content(testDataEnvelopeWithEmptyNameJson)
 						.contentType(MediaType.APPLICATION_JSON_VALUE))
-				.andExpect(status().isOk())
+				.andExpect(status().isBadRequest())
 				.andReturn();
 
 		boolean checksumPass = Boolean.parseBoolean(mvcResult.getResponse().getContentAsString());
-		assertThat(checksumPass).isTrue();
+		assertThat(checksumPass).isFalse();
 	}
 
 	@Test
-	public void testPushDataPostCallWithEmptyNameDataEnvelope() throws Exception {
-		String testDataEnvelopeWithEmptyNameJson = objectMapper.writeValueAsString(testDataEnvelopeWithEmptyName);
+	public void testPushDataBatchPostCallWorksAsExpected() throws Exception {
+		String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+		List<ChecksummedDataEnvelope> batch = Collections.singletonList(new ChecksummedDataEnvelope(testDataEnvelope, md5));
+		List<PushDataResult> expectedResults = Collections.singletonList(new PushDataResult(testDataEnvelope.getDataHeader().getName(), true, false));
 
-		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
-						.header("Content-MD5", DigestUtils.md5Hex(testDataEnvelopeWithEmptyName.getDataBody().getDataBody()))
-						.content(testDataEnvelopeWithEmptyNameJson)
+		when(serverMock.saveDataEnvelopes(anyList())).thenReturn(expectedResults);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_BATCH)
+						.content(objectMapper.writeValueAsString(batch))
 						.contentType(MediaType.APPLICATION_JSON_VALUE))
-				.andExpect(status().isBadRequest())
+				.andExpect(status().isOk())
 				.andReturn();
 
-		boolean checksumPass = Boolean.parseBoolean(mvcResult.getResponse().getContentAsString());
-		assertThat(checksumPass).isFalse();
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedResults));
+	}
+
+	@Test
+	public void testPushDataStreamPostCallWorksAsExpected() throws Exception {
+		StreamIngestResult expectedResult = new StreamIngestResult(1, 1, 0);
+		when(streamIngesterMock.ingest(any(InputStream.class))).thenReturn(expectedResult);
+
+		String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+		String ndjson = objectMapper.writeValueAsString(new ChecksummedDataEnvelope(testDataEnvelope, md5)) + "\n";
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_STREAM)
+						.content(ndjson)
+						.contentType(ServerController.APPLICATION_NDJSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedResult));
+	}
+
+	@Test
+	public void testQueryDataPage() throws Exception {
+		DataEnvelopePage expectedPage = new DataEnvelopePage(Collections.singletonList(testDataEnvelope), 42L);
+		when(serverMock.getDataEnvelopePage(BlockTypeEnum.BLOCKTYPEA.name(), 1, 41L)).thenReturn(expectedPage);
+
+		Map<String, String> uriVariables = new HashMap<>();
+		uriVariables.put("blockType", BlockTypeEnum.BLOCKTYPEA.name());
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA.expand(uriVariables))
+						.param("limit", "1")
+						.param("after", "41"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedPage));
+	}
+
+	@Test
+	public void testQueryDataByTime() throws Exception {
+		Instant from = Instant.parse("2020-01-01T00:00:00Z");
+		Instant to = Instant.parse("2020-01-02T00:00:00Z");
+		DataEnvelopePage expectedPage = new DataEnvelopePage(Collections.singletonList(testDataEnvelope), null);
+		when(serverMock.getDataEnvelopePage(from, to, BlockTypeEnum.BLOCKTYPEA, 10, null, null)).thenReturn(expectedPage);
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA_BY_TIME)
+						.param("from", from.toString())
+						.param("to", to.toString())
+						.param("blockType", BlockTypeEnum.BLOCKTYPEA.name())
+						.param("limit", "10"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedPage));
+	}
+
+	@Test
+	public void testQueryDataByTimeWithBothCursors() throws Exception {
+		Instant from = Instant.parse("2020-01-01T00:00:00Z");
+		Instant to = Instant.parse("2020-01-02T00:00:00Z");
+		Instant afterTimestamp = Instant.parse("2020-01-01T10:00:00Z");
+		DataEnvelopePage expectedPage = new DataEnvelopePage(Collections.singletonList(testDataEnvelope), null);
+		when(serverMock.getDataEnvelopePage(from, to, null, 10, afterTimestamp, 41L)).thenReturn(expectedPage);
+
+		mockMvc.perform(get(URI_GETDATA_BY_TIME)
+						.param("from", from.toString())
+						.param("to", to.toString())
+						.param("limit", "10")
+						.param("afterTimestamp", afterTimestamp.toString())
+						.param("after", "41"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void testQueryDataByTimeWithOnlyOneCursorIsRejected() throws Exception {
+		mockMvc.perform(get(URI_GETDATA_BY_TIME)
+						.param("from", "2020-01-01T00:00:00Z")
+						.param("to", "2020-01-02T00:00:00Z")
+						.param("after", "41"))
+				.andExpect(status().isBadRequest());
+
+		verify(serverMock, never()).getDataEnvelopePage(any(Instant.class), any(Instant.class), any(), anyInt(), any(), any());
+	}
+
+	@Test
+	public void testStreamData() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<DataEnvelope> consumer = invocation.getArgument(1);
+			consumer.accept(testDataEnvelope);
+			consumer.accept(testDataEnvelope);
+			return null;
+		}).when(serverMock).streamDataEnvelope(eq(BlockTypeEnum.BLOCKTYPEA.name()), any());
+
+		Map<String, String> uriVariables = new HashMap<>();
+		uriVariables.put("blockType", BlockTypeEnum.BLOCKTYPEA.name());
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA.expand(uriVariables))
+						.accept(ServerController.APPLICATION_NDJSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isOk());
+
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+		assertThat(mvcResult.getResponse().getContentType()).isEqualTo(ServerController.APPLICATION_NDJSON_VALUE);
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(testDataEnvelopeJson + "\n" + testDataEnvelopeJson + "\n");
 	}
 
 	@Test
@@ -141,6 +274,116 @@ public class ServerControllerComponentTest {
 		assertThat(queryDataJson).isEqualTo(testDataEnvelopeJson);
 	}
 
+	@Test
+	public void testPushDataPostCallInSmile() throws Exception {
+		ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+						.header("Content-MD5", DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody()))
+						.header(HttpHeaders.ACCEPT, ServerController.APPLICATION_SMILE_VALUE)
+						.content(smileMapper.writeValueAsBytes(testDataEnvelope))
+						.contentType(ServerController.APPLICATION_SMILE_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentType()).isEqualTo(ServerController.APPLICATION_SMILE_VALUE);
+		assertThat(smileMapper.readValue(mvcResult.getResponse().getContentAsByteArray(), Boolean.class)).isTrue();
+		verify(serverMock).saveDataEnvelope(any(DataEnvelope.class), eq(DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody())));
+	}
+
+	@Test
+	public void testQueryDataInSmile() throws Exception {
+		ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+		Map<String, String> uriVariables = new HashMap<>();
+		uriVariables.put("blockType", testDataEnvelope.getDataHeader().getBlockType().name());
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA.expand(uriVariables))
+						.header(HttpHeaders.ACCEPT, ServerController.APPLICATION_SMILE_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentType()).isEqualTo(ServerController.APPLICATION_SMILE_VALUE);
+		DataEnvelope[] dataEnvelopes = smileMapper.readValue(mvcResult.getResponse().getContentAsByteArray(), DataEnvelope[].class);
+		assertThat(dataEnvelopes).hasSize(1);
+		assertThat(dataEnvelopes[0].getDataHeader().getName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+		assertThat(dataEnvelopes[0].getDataBody().getDataBody()).isEqualTo(testDataEnvelope.getDataBody().getDataBody());
+	}
+
+	@Test
+	public void testGetStats() throws Exception {
+		Map<BlockTypeEnum, BlockTypeStats> expectedStats = new EnumMap<>(BlockTypeEnum.class);
+		expectedStats.put(BlockTypeEnum.BLOCKTYPEA, new BlockTypeStats(2, 20, Collections.singletonMap("1m", 0.5)));
+		when(serverMock.getBlockTypeStats()).thenReturn(expectedStats);
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_STATS))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedStats));
+	}
+
+	@Test
+	public void testUpdateDataBulk() throws Exception {
+		BulkUpdateRequest request = new BulkUpdateRequest(null, BlockTypeEnum.BLOCKTYPEA, null, BlockTypeEnum.BLOCKTYPEB);
+		BulkUpdateResult expectedResult = new BulkUpdateResult(3, Collections.singletonMap(BlockTypeEnum.BLOCKTYPEA, 3), 1);
+		when(serverMock.updateDataBlockTypes(any(BulkUpdateRequest.class))).thenReturn(expectedResult);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_UPDATE_BULK)
+						.content(objectMapper.writeValueAsString(request))
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(objectMapper.writeValueAsString(expectedResult));
+	}
+
+	@Test
+	public void testUpdateDataBulkRejectsNamesWithBlockType() throws Exception {
+		BulkUpdateRequest request = new BulkUpdateRequest(Collections.singletonList("name"), BlockTypeEnum.BLOCKTYPEA, null, BlockTypeEnum.BLOCKTYPEB);
+
+		mockMvc.perform(post(URI_UPDATE_BULK)
+						.content(objectMapper.writeValueAsString(request))
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isBadRequest());
+
+		verify(serverMock, never()).updateDataBlockTypes(any(BulkUpdateRequest.class));
+	}
+
+	@Test
+	public void testQueryDataReturnsETag() throws Exception {
+		when(serverMock.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEA.name())).thenReturn(TEST_ETAG);
+
+		Map<String, String> uriVariables = new HashMap<>();
+		uriVariables.put("blockType", BlockTypeEnum.BLOCKTYPEA.name());
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA.expand(uriVariables)))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(TEST_ETAG);
+		assertThat(mvcResult.getResponse().getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+		assertThat(mvcResult.getResponse().getContentAsString())
+				.isEqualTo(objectMapper.writeValueAsString(Collections.singletonList(testDataEnvelope)));
+	}
+
+	@Test
+	public void testQueryDataNotModifiedWithoutQueryingData() throws Exception {
+		when(serverMock.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEA.name())).thenReturn(TEST_ETAG);
+
+		Map<String, String> uriVariables = new HashMap<>();
+		uriVariables.put("blockType", BlockTypeEnum.BLOCKTYPEA.name());
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA.expand(uriVariables))
+						.header(HttpHeaders.IF_NONE_MATCH, TEST_ETAG))
+				.andExpect(status().isNotModified())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEmpty();
+		assertThat(mvcResult.getResponse().getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+		verify(serverMock, never()).getDataEnvelope(anyString());
+	}
+
 	@Test
 	public void testUpdateData() throws Exception {
 		Map<String, String> uriVariables = new HashMap<>();
@@ -1,9 +1,12 @@
 package com.db.dataplatform.techtest.api.model;
 
 import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -19,4 +22,23 @@ public class DataBodyTests {
         assertThat(dataBody).isNotNull();
         assertThat(dataBody.getDataBody()).isEqualTo(DUMMY_DATA);
     }
+
+    @Test
+    public void deserializeDataBodyShouldCalculateMd5Digest() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        DataBody dataBody = objectMapper.readValue(objectMapper.writeValueAsString(new DataBody(DUMMY_DATA)), DataBody.class);
+
+        assertThat(dataBody.getDataBody()).isEqualTo(DUMMY_DATA);
+        assertThat(dataBody.getMd5Digest()).isEqualTo(DigestUtils.md5(DUMMY_DATA));
+    }
+
+    @Test
+    public void serializeDataBodyShouldNotIncludeMd5Digest() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        String json = objectMapper.writeValueAsString(new DataBody(DUMMY_DATA, DigestUtils.md5(DUMMY_DATA)));
+
+        assertThat(json).isEqualTo("{\"dataBody\":\"" + DUMMY_DATA + "\"}");
+    }
 }
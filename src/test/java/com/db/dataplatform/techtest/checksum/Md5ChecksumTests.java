@@ -0,0 +1,63 @@
+package com.db.dataplatform.techtest.checksum;
+
+import com.db.dataplatform.techtest.server.checksum.Md5Checksum;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class Md5ChecksumTests {
+
+    @Test
+    public void digestShouldMatchDigestUtils() {
+        assertThat(Md5Checksum.digest(DUMMY_DATA)).isEqualTo(DigestUtils.md5(DUMMY_DATA));
+    }
+
+    @Test
+    public void digestShouldMatchDigestUtilsForTextLargerThanBuffer() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("\u00e9\u20ac").append(i);
+        }
+
+        assertThat(Md5Checksum.digest(text)).isEqualTo(DigestUtils.md5(text.toString()));
+    }
+
+    @Test
+    public void digestOfCharRangeShouldMatchDigestUtils() {
+        char[] chars = ("xx" + DUMMY_DATA + "yy").toCharArray();
+
+        assertThat(Md5Checksum.digest(chars, 2, DUMMY_DATA.length())).isEqualTo(DigestUtils.md5(DUMMY_DATA));
+    }
+
+    @Test
+    public void matchesHexShouldCompareIgnoringCase() {
+        byte[] digest = DigestUtils.md5(DUMMY_DATA);
+        String hex = DigestUtils.md5Hex(DUMMY_DATA);
+
+        assertThat(Md5Checksum.matchesHex(digest, hex)).isTrue();
+        assertThat(Md5Checksum.matchesHex(digest, hex.toUpperCase())).isTrue();
+        assertThat(Md5Checksum.matchesHex(digest, DigestUtils.md5Hex("other"))).isFalse();
+        assertThat(Md5Checksum.matchesHex(digest, hex.substring(1))).isFalse();
+        assertThat(Md5Checksum.matchesHex(digest, null)).isFalse();
+    }
+
+    @Test
+    public void matchesHexShouldRejectNonAsciiDigits() {
+        byte[] digest = DigestUtils.md5(DUMMY_DATA);
+        String hex = DigestUtils.md5Hex(DUMMY_DATA);
+        int digitIndex = 0;
+        while (!Character.isDigit(hex.charAt(digitIndex))) {
+            digitIndex++;
+        }
+        // Fullwidth digits U+FF10-U+FF19 have the same Character.digit value as their ASCII counterparts.
+        char fullwidthDigit = (char) ('\uff10' + (hex.charAt(digitIndex) - '0'));
+        String fullwidthHex = hex.substring(0, digitIndex) + fullwidthDigit + hex.substring(digitIndex + 1);
+
+        assertThat(Md5Checksum.matchesHex(digest, fullwidthHex)).isFalse();
+    }
+}
@@ -0,0 +1,70 @@
+package com.db.dataplatform.techtest.latency;
+
+import com.db.dataplatform.techtest.server.latency.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5000);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 4, 3000, 0.5, meterRegistry);
+    }
+
+    @Test
+    public void shouldShedOverLimit() throws InterruptedException {
+        assertThat(concurrencyLimiter.acquire(0)).isTrue();
+        assertThat(concurrencyLimiter.acquire(0)).isTrue();
+        assertThat(concurrencyLimiter.acquire(10)).isFalse();
+
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.METRIC_SHED).counter().count()).isEqualTo(1);
+        assertThat(concurrencyLimiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIncreaseLimitWhileHealthy() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            concurrencyLimiter.acquire(0);
+            concurrencyLimiter.acquire(0);
+            concurrencyLimiter.release(FAST, false);
+            concurrencyLimiter.release(FAST, false);
+        }
+
+        assertThat(concurrencyLimiter.getLimit()).isGreaterThan(2);
+        assertThat(concurrencyLimiter.getLimit()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void shouldDecreaseLimitOnDropOrSlowResponse() throws InterruptedException {
+        concurrencyLimiter.acquire(0);
+        concurrencyLimiter.release(FAST, true);
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(1);
+
+        concurrencyLimiter.acquire(0);
+        concurrencyLimiter.release(SLOW, false);
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotIncreaseLimitWhenMostlyIdle() throws InterruptedException {
+        AdaptiveConcurrencyLimiter idleLimiter = new AdaptiveConcurrencyLimiter("idle", 4, 1, 8, 3000, 0.5, meterRegistry);
+        for (int i = 0; i < 10; i++) {
+            idleLimiter.acquire(0);
+            idleLimiter.release(FAST, false);
+        }
+
+        assertThat(idleLimiter.getLimit()).isEqualTo(4);
+    }
+}
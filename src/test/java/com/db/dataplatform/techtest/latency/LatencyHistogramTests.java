@@ -0,0 +1,38 @@
+package com.db.dataplatform.techtest.latency;
+
+import com.db.dataplatform.techtest.server.latency.LatencyHistogram;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void shouldReturnMinusOneWhenEmpty() {
+        assertThat(new LatencyHistogram(10).percentile(0.5)).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldCalculatePercentiles() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram(100);
+        for (int latency = 100; latency >= 1; latency--) {
+            latencyHistogram.record(latency);
+        }
+
+        assertThat(latencyHistogram.percentile(0.5)).isEqualTo(50);
+        assertThat(latencyHistogram.percentile(0.95)).isEqualTo(95);
+        assertThat(latencyHistogram.percentile(1)).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldOnlyKeepMostRecentLatencies() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram(3);
+        latencyHistogram.record(1000);
+        latencyHistogram.record(10);
+        latencyHistogram.record(20);
+        latencyHistogram.record(30);
+
+        assertThat(latencyHistogram.percentile(1)).isEqualTo(30);
+        assertThat(latencyHistogram.getCount()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,54 @@
+package com.db.dataplatform.techtest.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataEnvelopeMapperTests {
+
+    private final DataEnvelopeMapper dataEnvelopeMapper = new DataEnvelopeMapper();
+
+    @Test
+    public void shouldMapDataEnvelopeToNewEntities() {
+        DataBodyEntity dataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(createTestDataEnvelopeApiObject());
+
+        assertThat(dataBodyEntity.getDataStoreId()).isNull();
+        assertThat(dataBodyEntity.getDataBody()).isEqualTo(DUMMY_DATA);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getDataHeaderId()).isNull();
+        assertThat(dataBodyEntity.getDataHeaderEntity().getName()).isEqualTo(TEST_NAME);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getBlocktype()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldMapEntitiesToDataEnvelope() {
+        DataEnvelope dataEnvelope = dataEnvelopeMapper.toDataEnvelope(createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now())));
+
+        assertThat(dataEnvelope.getDataHeader().getName()).isEqualTo(TEST_NAME);
+        assertThat(dataEnvelope.getDataHeader().getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(dataEnvelope.getDataBody().getDataBody()).isEqualTo(DUMMY_DATA);
+    }
+
+    @Test
+    public void shouldMapEntitiesToDataEnvelopesInOrder() {
+        DataBodyEntity first = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        DataBodyEntity second = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        second.getDataHeaderEntity().setName("Second");
+
+        List<DataEnvelope> dataEnvelopes = dataEnvelopeMapper.toDataEnvelopes(Arrays.asList(first, second));
+
+        assertThat(dataEnvelopes).extracting(dataEnvelope -> dataEnvelope.getDataHeader().getName()).containsExactly(TEST_NAME, "Second");
+    }
+}
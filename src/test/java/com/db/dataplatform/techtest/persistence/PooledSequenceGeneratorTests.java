@@ -0,0 +1,166 @@
+package com.db.dataplatform.techtest.persistence;
+
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import org.hibernate.MappingException;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.type.LongType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the optimizer of PooledSequenceGenerator with an in-memory sequence of INCREMENT BY the block size,
+ * without a database.
+ */
+public class PooledSequenceGeneratorTests {
+
+    private static final int BLOCK_SIZE = 10;
+
+    private StandardServiceRegistry serviceRegistry;
+    private Optimizer optimizer;
+
+    private final AtomicLong sequence = new AtomicLong(1);
+    private final AtomicInteger sequenceCalls = new AtomicInteger();
+    private final AccessCallback sequenceCallback = new AccessCallback() {
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            sequenceCalls.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(sequence.getAndAdd(BLOCK_SIZE));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    };
+
+    @Before
+    public void setup() {
+        serviceRegistry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .applySetting(PooledSequenceGenerator.BLOCK_SIZE_SETTING, String.valueOf(BLOCK_SIZE))
+                .build();
+
+        Properties params = new Properties();
+        params.setProperty(SequenceStyleGenerator.SEQUENCE_PARAM, "SEQ_TEST");
+        PooledSequenceGenerator generator = new PooledSequenceGenerator();
+        generator.configure(LongType.INSTANCE, params, serviceRegistry);
+        optimizer = generator.getOptimizer();
+    }
+
+    @After
+    public void tearDown() {
+        StandardServiceRegistryBuilder.destroy(serviceRegistry);
+    }
+
+    @Test
+    public void shouldUsePooledLoOptimizerWithConfiguredBlockSize() {
+        assertThat(optimizer).isInstanceOf(PooledLoOptimizer.class);
+        assertThat(optimizer.getIncrementSize()).isEqualTo(BLOCK_SIZE);
+    }
+
+    @Test
+    public void shouldAllocateBlockWithOneSequenceCall() {
+        List<Long> ids = generate(BLOCK_SIZE);
+
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(sequenceCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRollOverToNextBlockOnceBlockIsUsedUp() {
+        generate(BLOCK_SIZE);
+
+        List<Long> ids = generate(2);
+
+        assertThat(ids).containsExactly(11L, 12L);
+        assertThat(sequenceCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentInserts() throws Exception {
+        int threads = 8;
+        int idsPerThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit((Callable<List<Long>>) () -> generate(idsPerThread)));
+            }
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(threads * idsPerThread);
+        assertThat(sequenceCalls.get()).isEqualTo(threads * idsPerThread / BLOCK_SIZE);
+    }
+
+    @Test
+    public void shouldFailWhenSequenceIncrementDiffersFromBlockSize() throws Exception {
+        String url = "jdbc:h2:mem:pooledSequenceGeneratorTests;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create sequence if not exists SEQ_MISMATCH start with 1 increment by " + (BLOCK_SIZE * 5));
+
+            StandardServiceRegistry jdbcServiceRegistry = new StandardServiceRegistryBuilder()
+                    .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                    .applySetting(AvailableSettings.URL, url)
+                    .applySetting(AvailableSettings.USER, "sa")
+                    .applySetting(AvailableSettings.PASS, "")
+                    .applySetting(AvailableSettings.SEQUENCE_INCREMENT_SIZE_MISMATCH_STRATEGY, "exception")
+                    .applySetting(PooledSequenceGenerator.BLOCK_SIZE_SETTING, String.valueOf(BLOCK_SIZE))
+                    .build();
+            try {
+                Properties params = new Properties();
+                params.setProperty(SequenceStyleGenerator.SEQUENCE_PARAM, "SEQ_MISMATCH");
+
+                assertThatThrownBy(() -> new PooledSequenceGenerator().configure(LongType.INSTANCE, params, jdbcServiceRegistry))
+                        .isInstanceOf(MappingException.class);
+            } finally {
+                StandardServiceRegistryBuilder.destroy(jdbcServiceRegistry);
+                statement.execute("drop sequence SEQ_MISMATCH");
+            }
+        }
+    }
+
+    private List<Long> generate(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(((Number) optimizer.generate(sequenceCallback)).longValue());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,118 @@
+package com.db.dataplatform.techtest.persistence.engine;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.impl.JpaStorageEngine;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBlockRecord;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JpaStorageEngineTests {
+
+    @Mock
+    private DataStoreRepository dataStoreRepositoryMock;
+
+    @Mock
+    private DataHeaderRepository dataHeaderRepositoryMock;
+
+    private JpaStorageEngine jpaStorageEngine;
+    private DataBodyEntity expectedDataBodyEntity;
+    private DataBlockRecord expectedDataBlock;
+
+    @Before
+    public void setup() {
+        expectedDataBodyEntity = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        expectedDataBlock = createTestDataBlockRecord(expectedDataBodyEntity.getDataHeaderEntity().getCreatedTimestamp());
+
+        jpaStorageEngine = new JpaStorageEngine(dataStoreRepositoryMock, dataHeaderRepositoryMock);
+    }
+
+    @Test
+    public void shouldSaveDataBodiesWithOneRepositoryCall() {
+        expectedDataBodyEntity.setDataStoreId(2L);
+        expectedDataBodyEntity.getDataHeaderEntity().setDataHeaderId(1L);
+        when(dataStoreRepositoryMock.saveAll(anyList())).thenReturn(Collections.singletonList(expectedDataBodyEntity));
+
+        jpaStorageEngine.saveAll(Collections.singletonList(expectedDataBlock));
+
+        verify(dataStoreRepositoryMock, times(1)).saveAll(anyList());
+        assertThat(expectedDataBlock.getDataStoreId()).isEqualTo(2L);
+        assertThat(expectedDataBlock.getDataHeaderId()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldPageByCreatedTimestampWithoutBlockType() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        List<DataBlockRecord> dataBlockList = Collections.singletonList(expectedDataBlock);
+        when(dataStoreRepositoryMock.findPageByCreatedTimestamp(from, to, from, 10L, PageRequest.of(0, 5))).thenReturn(dataBlockList);
+
+        assertThat(jpaStorageEngine.findPageByCreatedTimestamp(from, to, null, from, 10L, 5)).isEqualTo(dataBlockList);
+    }
+
+    @Test
+    public void shouldPageByCreatedTimestampAndBlockType() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        List<DataBlockRecord> dataBlockList = Collections.singletonList(expectedDataBlock);
+        when(dataStoreRepositoryMock.findPageByCreatedTimestampAndBlockType(from, to, BlockTypeEnum.BLOCKTYPEA, from, 10L, PageRequest.of(0, 5)))
+                .thenReturn(dataBlockList);
+
+        assertThat(jpaStorageEngine.findPageByCreatedTimestamp(from, to, BlockTypeEnum.BLOCKTYPEA, from, 10L, 5)).isEqualTo(dataBlockList);
+    }
+
+    @Test
+    public void shouldRejectUpdateOfHeaderNotStored() {
+        when(dataHeaderRepositoryMock.findById(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> jpaStorageEngine.updateHeader(1L, "Test", BlockTypeEnum.BLOCKTYPEB))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(dataHeaderRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void shouldUpdateBlockTypeByHeaderIdsWithOneStatement() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        when(dataHeaderRepositoryMock.updateBlockTypeByIds(ids, BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB)).thenReturn(2);
+
+        assertThat(jpaStorageEngine.updateBlockTypeByHeaderIds(ids, BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldStreamDataBlocksOfBlockType() {
+        when(dataStoreRepositoryMock.streamByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Stream.of(expectedDataBlock));
+
+        List<DataBlockRecord> consumed = new ArrayList<>();
+        jpaStorageEngine.forEachByBlockType(BlockTypeEnum.BLOCKTYPEA, consumed::add);
+
+        assertThat(consumed).containsExactly(expectedDataBlock);
+    }
+}
@@ -0,0 +1,219 @@
+package com.db.dataplatform.techtest.persistence.engine;
+
+import com.db.dataplatform.techtest.server.StorageProperties;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
+import com.db.dataplatform.techtest.server.persistence.engine.impl.LogStorageEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LogStorageEngineTests {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StorageProperties storageProperties;
+    private Path path;
+    private LogStorageEngine logStorageEngine;
+
+    @Before
+    public void setup() throws Exception {
+        path = temporaryFolder.newFolder().toPath().resolve("datastore.log");
+        storageProperties = new StorageProperties();
+        storageProperties.getLog().setPath(path.toString());
+        logStorageEngine = open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        logStorageEngine.stop();
+    }
+
+    @Test
+    public void shouldAssignIdsAndFindSavedDataBody() {
+        DataBlockRecord dataBody = createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA);
+
+        logStorageEngine.save(dataBody);
+
+        assertThat(dataBody.getDataStoreId()).isEqualTo(1L);
+        assertThat(dataBody.getDataHeaderId()).isEqualTo(1L);
+        List<DataBlockRecord> found = logStorageEngine.findByName("Test1");
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getDataBody()).isEqualTo(DUMMY_DATA);
+        assertThat(found.get(0).getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(found.get(0).getCreatedTimestamp()).isEqualTo(dataBody.getCreatedTimestamp());
+        assertThat(logStorageEngine.findByName("Unknown")).isEmpty();
+    }
+
+    @Test
+    public void shouldPageByBlockTypeInDataStoreIdOrder() {
+        logStorageEngine.saveAll(Arrays.asList(
+                createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA),
+                createDataBody("Test2", BlockTypeEnum.BLOCKTYPEB),
+                createDataBody("Test3", BlockTypeEnum.BLOCKTYPEA),
+                createDataBody("Test4", BlockTypeEnum.BLOCKTYPEA)));
+
+        List<DataBlockRecord> page = logStorageEngine.findPageByBlockType(BlockTypeEnum.BLOCKTYPEA, 1L, 2);
+
+        assertThat(page).extracting(DataBlockRecord::getDataStoreId).containsExactly(3L, 4L);
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEB))
+                .extracting(StoredDataBlock::getName).containsExactly("Test2");
+    }
+
+    @Test
+    public void shouldPageByCreatedTimestampInTimestampAndDataStoreIdOrder() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        logStorageEngine.saveAll(Arrays.asList(
+                createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA, from.plusSeconds(3)),
+                createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA, from.plusSeconds(1)),
+                createDataBody("Test3", BlockTypeEnum.BLOCKTYPEA, from.plusSeconds(3)),
+                createDataBody("Test4", BlockTypeEnum.BLOCKTYPEA, from.minusSeconds(1)),
+                createDataBody("Test5", BlockTypeEnum.BLOCKTYPEA, from.plusSeconds(2))));
+
+        List<DataBlockRecord> firstPage = logStorageEngine.findPageByCreatedTimestamp(from, from.plusSeconds(10), null, from, 0L, 2);
+        DataBlockRecord last = firstPage.get(1);
+        List<DataBlockRecord> secondPage = logStorageEngine.findPageByCreatedTimestamp(from, from.plusSeconds(10), BlockTypeEnum.BLOCKTYPEA,
+                last.getCreatedTimestamp(), last.getDataStoreId(), 2);
+
+        assertThat(firstPage).extracting(DataBlockRecord::getDataStoreId).containsExactly(2L, 5L);
+        assertThat(secondPage).extracting(DataBlockRecord::getDataStoreId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void shouldRejectNameAlreadyStored() {
+        logStorageEngine.save(createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA));
+
+        assertThatThrownBy(() -> logStorageEngine.save(createDataBody("Test1", BlockTypeEnum.BLOCKTYPEB)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> logStorageEngine.saveAll(Arrays.asList(
+                createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA), createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEA)).hasSize(1);
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEB)).isEmpty();
+    }
+
+    @Test
+    public void shouldRejectDataBlockWithoutNameOrBlockTypeBeforeAppending() throws Exception {
+        logStorageEngine.save(createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA));
+        long length = path.toFile().length();
+
+        assertThatThrownBy(() -> logStorageEngine.saveAll(Arrays.asList(
+                createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA), createDataBody("Test3", null))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> logStorageEngine.save(createDataBody(null, BlockTypeEnum.BLOCKTYPEA)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        Long dataHeaderId = logStorageEngine.findByName("Test1").get(0).getDataHeaderId();
+        assertThatThrownBy(() -> logStorageEngine.updateHeader(dataHeaderId, "Test1", null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(path.toFile().length()).isEqualTo(length);
+        logStorageEngine.stop();
+        logStorageEngine = open();
+        assertThat(logStorageEngine.findTotalsByBlockType()).extracting(BlockTypeTotals::getBlockType)
+                .containsExactly(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldUpdateBlockTypeOfMatchingDataBlocksOnly() {
+        DataBlockRecord first = createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA);
+        DataBlockRecord second = createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA);
+        logStorageEngine.saveAll(Arrays.asList(first, second, createDataBody("Test3", BlockTypeEnum.BLOCKTYPEB)));
+
+        assertThat(logStorageEngine.updateBlockTypeByNames(Arrays.asList("Test1", "Test3"), BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB))
+                .isEqualTo(1);
+        assertThat(logStorageEngine.updateBlockTypeByHeaderIds(Collections.singletonList(second.getDataHeaderId()),
+                BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB)).isEqualTo(1);
+
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEA)).isEmpty();
+        assertThat(logStorageEngine.findDataBlocksByNames(Arrays.asList("Test1", "Test2"), BlockTypeEnum.BLOCKTYPEB))
+                .extracting(StoredDataBlock::getDataBody).containsExactly(DUMMY_DATA, DUMMY_DATA);
+    }
+
+    @Test
+    public void shouldTotalDataBodyCharactersByBlockType() {
+        logStorageEngine.saveAll(Arrays.asList(
+                createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA),
+                createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA)));
+
+        List<BlockTypeTotals> totals = logStorageEngine.findTotalsByBlockType();
+
+        assertThat(totals).hasSize(1);
+        assertThat(totals.get(0).getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(totals.get(0).getCount()).isEqualTo(2L);
+        assertThat(totals.get(0).getDataBodyLength()).isEqualTo(2L * DUMMY_DATA.length());
+    }
+
+    @Test
+    public void shouldRecoverDataBlocksAndUpdatesAfterReopening() throws Exception {
+        DataBlockRecord dataBody = createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA);
+        logStorageEngine.saveAll(Arrays.asList(dataBody, createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA)));
+        logStorageEngine.updateHeader(dataBody.getDataHeaderId(), dataBody.getName(), BlockTypeEnum.BLOCKTYPEB);
+
+        logStorageEngine.stop();
+        logStorageEngine = open();
+
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEB))
+                .extracting(StoredDataBlock::getName).containsExactly("Test1");
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .extracting(StoredDataBlock::getDataBody).containsExactly(DUMMY_DATA);
+
+        DataBlockRecord next = createDataBody("Test3", BlockTypeEnum.BLOCKTYPEA);
+        logStorageEngine.save(next);
+        assertThat(next.getDataStoreId()).isEqualTo(3L);
+    }
+
+    @Test
+    public void shouldTruncateTornRecordWhenReopening() throws Exception {
+        logStorageEngine.save(createDataBody("Test1", BlockTypeEnum.BLOCKTYPEA));
+        logStorageEngine.save(createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA));
+        logStorageEngine.stop();
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        logStorageEngine = open();
+
+        assertThat(logStorageEngine.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .extracting(StoredDataBlock::getName).containsExactly("Test1");
+        logStorageEngine.save(createDataBody("Test2", BlockTypeEnum.BLOCKTYPEA));
+        assertThat(logStorageEngine.findByName("Test2").get(0).getDataBody()).isEqualTo(DUMMY_DATA);
+    }
+
+    private LogStorageEngine open() {
+        LogStorageEngine engine = new LogStorageEngine(storageProperties);
+        engine.start();
+        return engine;
+    }
+
+    private static DataBlockRecord createDataBody(String name, BlockTypeEnum blockType, Instant createdTimestamp) {
+        DataBlockRecord dataBlock = createDataBody(name, blockType);
+        dataBlock.setCreatedTimestamp(createdTimestamp);
+        return dataBlock;
+    }
+
+    private static DataBlockRecord createDataBody(String name, BlockTypeEnum blockType) {
+        DataBlockRecord dataBlock = new DataBlockRecord();
+        dataBlock.setName(name);
+        dataBlock.setBlockType(blockType);
+        dataBlock.setHeaderCreatedTimestamp(Instant.now());
+        dataBlock.setDataBody(DUMMY_DATA);
+        return dataBlock;
+    }
+}
@@ -0,0 +1,73 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.AsyncConfiguration;
+import com.db.dataplatform.techtest.server.AsyncProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class AsyncConfigurationTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor dataLakeExecutor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setDataLake(new AsyncProperties.Pool(1, 1, 1));
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        dataLakeExecutor = new AsyncConfiguration(asyncProperties, beanFactory.getBeanProvider(MeterRegistry.class)).dataLakeExecutor();
+        dataLakeExecutor.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        dataLakeExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldRejectTasksBeyondQueueCapacity() {
+        dataLakeExecutor.execute(this::awaitRelease);
+        dataLakeExecutor.execute(this::awaitRelease);
+
+        assertThatThrownBy(() -> dataLakeExecutor.execute(this::awaitRelease)).isInstanceOf(TaskRejectedException.class);
+        assertThat(meterRegistry.get(AsyncConfiguration.METRIC_REJECTED)
+                .tag(AsyncConfiguration.TAG_NAME, AsyncConfiguration.DATA_LAKE_EXECUTOR).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(AsyncConfiguration.METRIC_QUEUE_SIZE).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordTaskLatency() {
+        release.countDown();
+        dataLakeExecutor.execute(this::awaitRelease);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                meterRegistry.get(AsyncConfiguration.METRIC_EXECUTION).timer().count() == 1);
+        assertThat(meterRegistry.get(AsyncConfiguration.METRIC_QUEUE_WAIT).timer().count()).isEqualTo(1);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.DataLakeClient;
+import com.db.dataplatform.techtest.server.component.impl.BatchingDataLakeDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingDataLakeDispatcherTests {
+
+    @Mock
+    private DataLakeClient dataLakeClientMock;
+
+    private DataLakeProperties dataLakeProperties;
+    private ExecutorService flushExecutor;
+    private BatchingDataLakeDispatcher dataLakeDispatcher;
+
+    @Before
+    public void setup() {
+        dataLakeProperties = new DataLakeProperties();
+        dataLakeProperties.setMaxBatchSize(3);
+        dataLakeProperties.setLingerMs(20);
+
+        flushExecutor = Executors.newSingleThreadExecutor();
+        dataLakeDispatcher = new BatchingDataLakeDispatcher(dataLakeProperties, flushExecutor, dataLakeClientMock, new SimpleMeterRegistry());
+    }
+
+    @After
+    public void tearDown() {
+        dataLakeDispatcher.stop();
+        flushExecutor.shutdownNow();
+    }
+
+    @Test
+    public void shouldSendFullBufferInOneBulkRequest() throws Exception {
+        when(dataLakeClientMock.push(Arrays.asList("a", "b", "c"))).thenReturn(HttpStatus.OK);
+
+        CompletableFuture<HttpStatus> first = dataLakeDispatcher.submit("a");
+        CompletableFuture<HttpStatus> second = dataLakeDispatcher.submit("b");
+        CompletableFuture<HttpStatus> third = dataLakeDispatcher.submit("c");
+
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+        assertThat(first.join()).isEqualTo(HttpStatus.OK);
+        assertThat(third.join()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void shouldSendPartialBufferAfterLinger() throws Exception {
+        when(dataLakeClientMock.push(Collections.singletonList("a"))).thenReturn(HttpStatus.OK);
+
+        CompletableFuture<HttpStatus> status = dataLakeDispatcher.submit("a");
+
+        assertThat(status.get(5, TimeUnit.SECONDS)).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void shouldFailEveryPayloadOfFailedBulkRequest() {
+        when(dataLakeClientMock.push(anyList())).thenThrow(new HttpServerErrorException(HttpStatus.GATEWAY_TIMEOUT));
+
+        CompletableFuture<HttpStatus> first = dataLakeDispatcher.submit("a");
+        CompletableFuture<HttpStatus> second = dataLakeDispatcher.submit("b");
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpServerErrorException.class);
+        assertThatThrownBy(second::join).isInstanceOf(CompletionException.class);
+    }
+
+    @Test
+    public void shouldFailPayloadsWhenFlushExecutorIsSaturated() {
+        BatchingDataLakeDispatcher saturatedDispatcher = new BatchingDataLakeDispatcher(dataLakeProperties,
+                runnable -> { throw new RejectedExecutionException("saturated"); }, dataLakeClientMock,
+                new SimpleMeterRegistry());
+        try {
+            CompletableFuture<HttpStatus> first = saturatedDispatcher.submit("a");
+            CompletableFuture<HttpStatus> second = saturatedDispatcher.submit("b");
+            CompletableFuture<HttpStatus> third = saturatedDispatcher.submit("c");
+
+            assertThat(first).isCompletedExceptionally();
+            assertThat(second).isCompletedExceptionally();
+            assertThat(third).isCompletedExceptionally();
+            verify(dataLakeClientMock, never()).push(anyList());
+        } finally {
+            saturatedDispatcher.stop();
+        }
+    }
+}
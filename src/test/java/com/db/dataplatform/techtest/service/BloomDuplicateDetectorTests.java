@@ -0,0 +1,99 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.impl.BloomDuplicateDetector;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.function.BiConsumer;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BloomDuplicateDetectorTests {
+
+    @Mock
+    private DataBodyService dataBodyServiceImplMock;
+
+    private IngestProperties ingestProperties;
+    private BloomDuplicateDetector duplicateDetector;
+
+    @Before
+    public void setup() {
+        ingestProperties = new IngestProperties();
+        ingestProperties.getDuplicateDetection().setExpectedInsertions(1000);
+
+        duplicateDetector = new BloomDuplicateDetector(dataBodyServiceImplMock, ingestProperties);
+    }
+
+    @Test
+    public void shouldDetectRecordedDataBlock() {
+        duplicateDetector.record(TEST_NAME, DigestUtils.md5(DUMMY_DATA));
+
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5(DUMMY_DATA))).isTrue();
+    }
+
+    @Test
+    public void shouldNotDetectDataBlockWithOtherNameOrBody() {
+        duplicateDetector.record(TEST_NAME, DigestUtils.md5(DUMMY_DATA));
+
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5("other"))).isFalse();
+        assertThat(duplicateDetector.isDuplicate("other", DigestUtils.md5(DUMMY_DATA))).isFalse();
+    }
+
+    @Test
+    public void shouldLookUpDataBlockEvictedFromCacheInDb() {
+        ingestProperties.getDuplicateDetection().setMaxCachedEntries(1);
+        duplicateDetector = new BloomDuplicateDetector(dataBodyServiceImplMock, ingestProperties);
+        when(dataBodyServiceImplMock.getDataBodyByBlockName(TEST_NAME)).thenReturn(Collections.singletonList(
+                new DataEnvelopeMapper().toDataBodyEntity(new DataEnvelope(TEST_NAME, BlockTypeEnum.BLOCKTYPEA, DUMMY_DATA))));
+
+        duplicateDetector.record(TEST_NAME, DigestUtils.md5(DUMMY_DATA));
+        duplicateDetector.record("other", DigestUtils.md5("other"));
+
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5(DUMMY_DATA))).isTrue();
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5(DUMMY_DATA))).isTrue();
+        verify(dataBodyServiceImplMock, times(1)).getDataBodyByBlockName(TEST_NAME);
+    }
+
+    @Test
+    public void shouldNotDetectDataBlockEvictedFromCacheAndNotStored() {
+        ingestProperties.getDuplicateDetection().setMaxCachedEntries(1);
+        duplicateDetector = new BloomDuplicateDetector(dataBodyServiceImplMock, ingestProperties);
+
+        duplicateDetector.record(TEST_NAME, DigestUtils.md5(DUMMY_DATA));
+        duplicateDetector.record("other", DigestUtils.md5("other"));
+
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5(DUMMY_DATA))).isFalse();
+        assertThat(duplicateDetector.isDuplicate("other", DigestUtils.md5("other"))).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldDetectDataBlocksStoredBeforeStartup() {
+        doAnswer(invocation -> {
+            ((BiConsumer<String, String>) invocation.getArgument(0)).accept(TEST_NAME, DUMMY_DATA);
+            return null;
+        }).when(dataBodyServiceImplMock).forEachNameAndDataBody(any());
+
+        duplicateDetector.warmUp();
+
+        assertThat(duplicateDetector.isDuplicate(TEST_NAME, DigestUtils.md5(DUMMY_DATA))).isTrue();
+    }
+}
@@ -1,25 +1,41 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.StorageProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.DataBlockRecord;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
+import com.db.dataplatform.techtest.server.persistence.engine.StoredDataBlock;
+import com.db.dataplatform.techtest.server.persistence.engine.impl.LogStorageEngine;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
-import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataLakeOutboxRepository;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
 import com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBlockRecord;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -27,50 +43,209 @@ public class DataBodyServiceTests {
 
     public static final String TEST_NAME_NO_RESULT = "TestNoResult";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private StorageEngine storageEngineMock;
+
     @Mock
-    private DataStoreRepository dataStoreRepositoryMock;
+    private DataLakeOutboxRepository dataLakeOutboxRepositoryMock;
 
     private DataBodyService dataBodyService;
     private DataBodyEntity expectedDataBodyEntity;
+    private DataBlockRecord expectedDataBlock;
 
     @Before
     public void setup() {
         DataHeaderEntity testDataHeaderEntity = createTestDataHeaderEntity(Instant.now());
         expectedDataBodyEntity = createTestDataBodyEntity(testDataHeaderEntity);
+        expectedDataBlock = createTestDataBlockRecord(testDataHeaderEntity.getCreatedTimestamp());
 
-        dataBodyService = new DataBodyServiceImpl(dataStoreRepositoryMock);
+        dataBodyService = new DataBodyServiceImpl(storageEngineMock, dataLakeOutboxRepositoryMock);
     }
 
     @Test
     public void shouldSaveDataBodyEntityAsExpected(){
+        doAnswer(invocation -> {
+            DataBlockRecord dataBlock = invocation.getArgument(0);
+            dataBlock.setDataStoreId(2L);
+            dataBlock.setDataHeaderId(1L);
+            return null;
+        }).when(storageEngineMock).save(any(DataBlockRecord.class));
+
         dataBodyService.saveDataBody(expectedDataBodyEntity);
 
-        verify(dataStoreRepositoryMock, times(1))
-                .save(eq(expectedDataBodyEntity));
+        verify(storageEngineMock, times(1))
+                .save(argThat((DataBlockRecord dataBlock) -> isExpectedDataBlock(dataBlock)));
+        assertThat(expectedDataBodyEntity.getDataStoreId()).isEqualTo(2L);
+        assertThat(expectedDataBodyEntity.getDataHeaderEntity().getDataHeaderId()).isEqualTo(1L);
     }
 
     @Test
-    public void getDataBodyEntityByBlockTypeAsExpected() {
+    public void shouldSaveDataBodyEntitiesInBatchAsExpected(){
+        List<DataBodyEntity> dataBodyEntityList = Collections.singletonList(expectedDataBodyEntity);
+        dataBodyService.saveDataBodies(dataBodyEntityList);
 
-        List<DataBodyEntity> dataBodyEntityList = new ArrayList<>();
-        dataBodyEntityList.add(expectedDataBodyEntity);
-        when(dataStoreRepositoryMock.findByDataHeaderEntity_Blocktype(BlockTypeEnum.BLOCKTYPEA)).thenReturn(dataBodyEntityList);
+        verify(storageEngineMock, times(1))
+                .saveAll(argThat((List<DataBlockRecord> dataBlocks) -> dataBlocks.size() == 1 && isExpectedDataBlock(dataBlocks.get(0))));
+    }
 
-        List<DataBodyEntity> result = dataBodyService.getDataBodyByBlockType(BlockTypeEnum.BLOCKTYPEA);
+    @Test
+    public void shouldQueueNewDataBodyForDataLake(){
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
 
-        assertThat(result).isEqualTo(dataBodyEntityList);
+        verify(dataLakeOutboxRepositoryMock, times(1))
+                .saveAndFlush(argThat((DataLakeOutboxEntity outboxEntity) -> expectedDataBodyEntity.getDataBody().equals(outboxEntity.getPayload())));
+    }
+
+    @Test
+    public void shouldQueueNewDataBodyBeforeStoringIt(){
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
+
+        InOrder inOrder = inOrder(dataLakeOutboxRepositoryMock, storageEngineMock);
+        inOrder.verify(dataLakeOutboxRepositoryMock).saveAndFlush(any(DataLakeOutboxEntity.class));
+        inOrder.verify(storageEngineMock).save(any(DataBlockRecord.class));
+    }
+
+    @Test
+    public void shouldNotQueueUpdatedDataBodyForDataLake(){
+        expectedDataBodyEntity.setDataStoreId(1L);
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
+
+        verify(storageEngineMock, times(1)).save(argThat((DataBlockRecord dataBlock) -> Long.valueOf(1L).equals(dataBlock.getDataStoreId())));
+        verify(dataLakeOutboxRepositoryMock, never()).saveAndFlush(any(DataLakeOutboxEntity.class));
+    }
+
+    @Test
+    public void shouldQueueNewDataBodiesInBatchForDataLake(){
+        List<DataBodyEntity> dataBodyEntityList = Collections.singletonList(expectedDataBodyEntity);
+        dataBodyService.saveDataBodies(dataBodyEntityList);
+
+        verify(dataLakeOutboxRepositoryMock, times(1))
+                .saveAll(argThat((List<DataLakeOutboxEntity> outboxEntities) -> outboxEntities.size() == 1));
+    }
+
+    @Test
+    public void shouldFlushNewDataBodiesInBatchBeforeStoringThem(){
+        dataBodyService.saveDataBodies(Collections.singletonList(expectedDataBodyEntity));
+
+        InOrder inOrder = inOrder(dataLakeOutboxRepositoryMock, storageEngineMock);
+        inOrder.verify(dataLakeOutboxRepositoryMock).saveAll(anyList());
+        inOrder.verify(dataLakeOutboxRepositoryMock).flush();
+        inOrder.verify(storageEngineMock).saveAll(anyList());
+    }
+
+    @Test
+    public void shouldNotAppendDataBodyToLogWhenOutboxWriteFails() throws Exception {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getLog().setPath(temporaryFolder.newFolder().toPath().resolve("datastore.log").toString());
+        LogStorageEngine logStorageEngine = new LogStorageEngine(storageProperties);
+        logStorageEngine.start();
+        try {
+            DataBodyService logDataBodyService = new DataBodyServiceImpl(logStorageEngine, dataLakeOutboxRepositoryMock);
+            when(dataLakeOutboxRepositoryMock.saveAndFlush(any(DataLakeOutboxEntity.class)))
+                    .thenThrow(new DataIntegrityViolationException("Outbox insert failed"));
+
+            assertThatThrownBy(() -> logDataBodyService.saveDataBody(expectedDataBodyEntity))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+
+            assertThat(logStorageEngine.findByName(expectedDataBodyEntity.getDataHeaderEntity().getName())).isEmpty();
+        } finally {
+            logStorageEngine.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotAppendDataBodiesToLogWhenOutboxFlushFails() throws Exception {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getLog().setPath(temporaryFolder.newFolder().toPath().resolve("datastore.log").toString());
+        LogStorageEngine logStorageEngine = new LogStorageEngine(storageProperties);
+        logStorageEngine.start();
+        try {
+            DataBodyService logDataBodyService = new DataBodyServiceImpl(logStorageEngine, dataLakeOutboxRepositoryMock);
+            doThrow(new DataIntegrityViolationException("Outbox insert failed")).when(dataLakeOutboxRepositoryMock).flush();
+
+            assertThatThrownBy(() -> logDataBodyService.saveDataBodies(Collections.singletonList(expectedDataBodyEntity)))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+
+            assertThat(logStorageEngine.findByName(expectedDataBodyEntity.getDataHeaderEntity().getName())).isEmpty();
+        } finally {
+            logStorageEngine.stop();
+        }
+    }
+
+    @Test
+    public void getDataEnvelopesByBlockTypeAsExpected() {
+
+        DataEnvelope dataEnvelope = createTestDataEnvelopeApiObject();
+        when(storageEngineMock.findDataBlocksByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Collections.singletonList(
+                new StoredDataBlock(dataEnvelope.getDataHeader().getName(), BlockTypeEnum.BLOCKTYPEA, dataEnvelope.getDataBody().getDataBody())));
+
+        List<DataEnvelope> result = dataBodyService.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getDataHeader().getName()).isEqualTo(dataEnvelope.getDataHeader().getName());
+        assertThat(result.get(0).getDataHeader().getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(result.get(0).getDataBody().getDataBody()).isEqualTo(dataEnvelope.getDataBody().getDataBody());
     }
 
     @Test
     public void getDataBodyEntityByBlockNameAsExpected() {
 
-        List<DataBodyEntity> dataBodyEntityList = new ArrayList<>();
-        dataBodyEntityList.add(expectedDataBodyEntity);
-        when(dataStoreRepositoryMock.findByDataHeaderEntity_Name(expectedDataBodyEntity.getDataHeaderEntity().getName())).thenReturn(dataBodyEntityList);
+        when(storageEngineMock.findByName(expectedDataBlock.getName())).thenReturn(Collections.singletonList(expectedDataBlock));
+
+        List<DataBodyEntity> result = dataBodyService.getDataBodyByBlockName(expectedDataBlock.getName());
+
+        assertThat(result).hasSize(1);
+        assertIsExpectedDataBodyEntity(result.get(0));
+    }
+
+    @Test
+    public void getDataBodyEntityPageByBlockTypeAsExpected() {
+
+        when(storageEngineMock.findPageByBlockType(BlockTypeEnum.BLOCKTYPEA, 10L, 5)).thenReturn(Collections.singletonList(expectedDataBlock));
 
-        dataBodyService.getDataBodyByBlockName(expectedDataBodyEntity.getDataHeaderEntity().getName());
+        List<DataBodyEntity> result = dataBodyService.getDataBodyPageByBlockType(BlockTypeEnum.BLOCKTYPEA, 10L, 5);
+
+        assertThat(result).hasSize(1);
+        assertIsExpectedDataBodyEntity(result.get(0));
+    }
+
+    @Test
+    public void getDataBodyEntityPageByCreatedTimestampAsExpected() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        when(storageEngineMock.findPageByCreatedTimestamp(from, to, null, from, 10L, 5)).thenReturn(Collections.singletonList(expectedDataBlock));
+
+        List<DataBodyEntity> result = dataBodyService.getDataBodyPageByCreatedTimestamp(from, to, null, from, 10L, 5);
+
+        assertThat(result).hasSize(1);
+        assertIsExpectedDataBodyEntity(result.get(0));
+    }
+
+    @Test
+    public void getDataBodyEntityPageByCreatedTimestampAndBlockTypeAsExpected() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        when(storageEngineMock.findPageByCreatedTimestamp(from, to, BlockTypeEnum.BLOCKTYPEA, from, 10L, 5))
+                .thenReturn(Collections.singletonList(expectedDataBlock));
+
+        List<DataBodyEntity> result = dataBodyService.getDataBodyPageByCreatedTimestamp(from, to, BlockTypeEnum.BLOCKTYPEA, from, 10L, 5);
+
+        assertThat(result).hasSize(1);
+        assertIsExpectedDataBodyEntity(result.get(0));
+    }
+
+    private boolean isExpectedDataBlock(DataBlockRecord dataBlock) {
+        return expectedDataBlock.getName().equals(dataBlock.getName())
+                && expectedDataBlock.getBlockType() == dataBlock.getBlockType()
+                && expectedDataBlock.getDataBody().equals(dataBlock.getDataBody());
+    }
 
-        List<DataBodyEntity> result = dataBodyService.getDataBodyByBlockName(expectedDataBodyEntity.getDataHeaderEntity().getName());
-        assertThat(result).isEqualTo(dataBodyEntityList);
+    private void assertIsExpectedDataBodyEntity(DataBodyEntity dataBodyEntity) {
+        assertThat(dataBodyEntity.getDataHeaderEntity().getName()).isEqualTo(expectedDataBlock.getName());
+        assertThat(dataBodyEntity.getDataHeaderEntity().getBlocktype()).isEqualTo(expectedDataBlock.getBlockType());
+        assertThat(dataBodyEntity.getDataBody()).isEqualTo(expectedDataBlock.getDataBody());
     }
 }
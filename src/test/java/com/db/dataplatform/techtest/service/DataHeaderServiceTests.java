@@ -1,7 +1,8 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.StorageEngine;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
-import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
 import com.db.dataplatform.techtest.server.service.DataHeaderService;
 import com.db.dataplatform.techtest.server.service.impl.DataHeaderServiceImpl;
 import org.junit.Before;
@@ -11,17 +12,24 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataHeaderServiceTests {
 
     @Mock
-    private DataHeaderRepository dataHeaderRepositoryMock;
+    private StorageEngine storageEngineMock;
 
     private DataHeaderService dataHeaderService;
     private DataHeaderEntity expectedDataHeaderEntity;
@@ -30,15 +38,46 @@ public class DataHeaderServiceTests {
     public void setup() {
         expectedDataHeaderEntity = createTestDataHeaderEntity(Instant.now());
 
-        dataHeaderService = new DataHeaderServiceImpl(dataHeaderRepositoryMock);
+        dataHeaderService = new DataHeaderServiceImpl(storageEngineMock);
     }
 
     @Test
-    public void shouldSaveDataHeaderEntityAsExpected(){
-        dataHeaderService.saveHeader(expectedDataHeaderEntity);
+    public void shouldUpdateStoredDataHeaderEntityAsExpected(){
+        expectedDataHeaderEntity.setDataHeaderId(1L);
+        dataHeaderService.updateHeader(expectedDataHeaderEntity);
 
-        verify(dataHeaderRepositoryMock, times(1))
-                .save(eq(expectedDataHeaderEntity));
+        verify(storageEngineMock, times(1))
+                .updateHeader(eq(1L), eq(expectedDataHeaderEntity.getName()), eq(BlockTypeEnum.BLOCKTYPEA));
+    }
+
+    @Test
+    public void shouldRejectUpdateOfDataHeaderEntityNotStored(){
+        assertThatThrownBy(() -> dataHeaderService.updateHeader(expectedDataHeaderEntity))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(storageEngineMock, never()).updateHeader(any(), any(), any());
+    }
+
+    @Test
+    public void shouldUpdateBlockTypeByNamesWithOneStatement() {
+        List<String> names = Arrays.asList("name1", "name2");
+        when(storageEngineMock.updateBlockTypeByNames(names, BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB)).thenReturn(2);
+
+        int updated = dataHeaderService.updateBlockTypeByNames(names, BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB);
+
+        assertThat(updated).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldGetIdsByBlockTypeCreatedBeforeAsExpected() {
+        Instant createdBefore = Instant.now();
+        List<Long> ids = Arrays.asList(11L, 12L);
+        when(storageEngineMock.findHeaderIdsByBlockTypeCreatedBefore(BlockTypeEnum.BLOCKTYPEA, createdBefore, 10L, 2))
+                .thenReturn(ids);
+
+        List<Long> result = dataHeaderService.getIdsByBlockTypeCreatedBefore(BlockTypeEnum.BLOCKTYPEA, createdBefore, 10L, 2);
+
+        assertThat(result).isEqualTo(ids);
     }
 
 }
@@ -0,0 +1,72 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.impl.FileIngestDeadLetters;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FileIngestDeadLettersTests {
+
+    private static final Instant NOW = Instant.parse("2020-07-01T10:00:00Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Path deadLetterPath;
+    private FileIngestDeadLetters ingestDeadLetters;
+
+    @Before
+    public void setup() throws Exception {
+        deadLetterPath = temporaryFolder.newFolder().toPath().resolve("dead").resolve("ingest.rejected.ndjson");
+        IngestProperties ingestProperties = new IngestProperties();
+        ingestProperties.getJournal().setDeadLetterPath(deadLetterPath.toString());
+
+        ingestDeadLetters = new FileIngestDeadLetters(ingestProperties, objectMapper, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void shouldAppendRejectedDataEnvelopesAsJsonLines() throws Exception {
+        ingestDeadLetters.reject(new DataEnvelope("Test1", BlockTypeEnum.BLOCKTYPEA, "body1"), "unique");
+        ingestDeadLetters.reject(new DataEnvelope("Test2", BlockTypeEnum.BLOCKTYPEB, "body2"), "unique");
+
+        List<String> lines = Files.readAllLines(deadLetterPath, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        JsonNode deadLetter = objectMapper.readTree(lines.get(1));
+        assertThat(deadLetter.get("rejectedTimestamp").asText()).isEqualTo(NOW.toString());
+        assertThat(deadLetter.get("reason").asText()).isEqualTo("unique");
+        assertThat(deadLetter.at("/dataEnvelope/dataHeader/name").asText()).isEqualTo("Test2");
+        assertThat(deadLetter.at("/dataEnvelope/dataHeader/blockType").asText()).isEqualTo("BLOCKTYPEB");
+        assertThat(deadLetter.at("/dataEnvelope/dataBody/dataBody").asText()).isEqualTo("body2");
+    }
+
+    @Test
+    public void shouldCountRejectedDataEnvelopes() {
+        ingestDeadLetters.reject(new DataEnvelope("Test1", BlockTypeEnum.BLOCKTYPEA, "body1"), "unique");
+
+        assertThat(meterRegistry.get(FileIngestDeadLetters.METRIC_REJECTED).counter().count()).isEqualTo(1.0);
+    }
+}
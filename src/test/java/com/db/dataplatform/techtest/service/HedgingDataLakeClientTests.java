@@ -0,0 +1,153 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.impl.HedgingDataLakeClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HedgingDataLakeClientTests {
+
+    @Mock
+    private CloseableHttpClient httpClientMock;
+
+    @Mock
+    private CloseableHttpResponse okResponseMock;
+
+    private DataLakeProperties dataLakeProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private HedgingDataLakeClient dataLakeClient;
+
+    @Before
+    public void setup() {
+        dataLakeProperties = new DataLakeProperties();
+        dataLakeProperties.getHedging().setMinSamples(1);
+        dataLakeProperties.getHedging().setMaxHedgeRatio(1);
+
+        meterRegistry = new SimpleMeterRegistry();
+        dataLakeClient = new HedgingDataLakeClient(dataLakeProperties, httpClientMock, new ObjectMapper(), meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        dataLakeClient.stop();
+    }
+
+    @Test
+    public void shouldNotHedgeBeforeEnoughLatenciesAreKnown() throws IOException {
+        when(okResponseMock.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenReturn(okResponseMock);
+
+        HttpStatus status = dataLakeClient.push(Collections.singletonList("a"));
+
+        assertThat(status).isEqualTo(HttpStatus.OK);
+        verify(httpClientMock, times(1)).execute(any(HttpUriRequest.class));
+        assertThat(meterRegistry.get(HedgingDataLakeClient.METRIC_HEDGES).counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnHedgeResponseAndAbortSlowAttempt() throws IOException {
+        when(okResponseMock.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        // The warm-up latency delays the hedge until the primary attempt is running.
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return okResponseMock;
+        });
+        dataLakeClient.push(Collections.singletonList("warm-up"));
+
+        CountDownLatch aborted = new CountDownLatch(1);
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().startsWith("datalake-hedge")) {
+                return okResponseMock;
+            }
+            HttpPost post = invocation.getArgument(0);
+            post.setCancellable(() -> {
+                aborted.countDown();
+                return true;
+            });
+            if (!post.isAborted()) {
+                aborted.await(5, TimeUnit.SECONDS);
+            }
+            throw new IOException("Request aborted");
+        });
+
+        long start = System.nanoTime();
+        HttpStatus status = dataLakeClient.push(Collections.singletonList("a"));
+
+        assertThat(status).isEqualTo(HttpStatus.OK);
+        assertThat(aborted.getCount()).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2_000);
+        assertThat(meterRegistry.get(HedgingDataLakeClient.METRIC_HEDGES).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(HedgingDataLakeClient.METRIC_HEDGE_WINS).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailWithServerErrorOfDataLake() throws IOException {
+        dataLakeProperties.getHedging().setEnabled(false);
+        when(okResponseMock.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 504, "Gateway Timeout"));
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenReturn(okResponseMock);
+
+        assertThatThrownBy(() -> dataLakeClient.push(Collections.singletonList("a")))
+                .isInstanceOf(HttpServerErrorException.class);
+    }
+
+    @Test
+    public void shouldFailWhenAttemptThrowsUnexpectedException() throws IOException {
+        dataLakeProperties.getHedging().setEnabled(false);
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenThrow(new IllegalStateException("Connection pool shut down"));
+
+        assertThatThrownBy(() -> dataLakeClient.push(Collections.singletonList("a")))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("Connection pool shut down");
+    }
+
+    @Test
+    public void shouldAbortAttemptOnceRequestTimeoutElapsed() throws IOException {
+        dataLakeProperties.getHedging().setEnabled(false);
+        dataLakeProperties.setRequestTimeoutMs(100);
+        CountDownLatch aborted = new CountDownLatch(1);
+        when(httpClientMock.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            HttpPost post = invocation.getArgument(0);
+            post.setCancellable(() -> {
+                aborted.countDown();
+                return true;
+            });
+            if (!post.isAborted()) {
+                aborted.await(5, TimeUnit.SECONDS);
+            }
+            throw new IOException("Request aborted");
+        });
+
+        assertThatThrownBy(() -> dataLakeClient.push(Collections.singletonList("a")))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("timed out");
+        assertThat(aborted.getCount()).isZero();
+    }
+}
@@ -0,0 +1,100 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.component.impl.MappedIngestJournal;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MappedIngestJournalTests {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private IngestProperties ingestProperties;
+    private MappedIngestJournal ingestJournal;
+
+    @Before
+    public void setup() throws Exception {
+        ingestProperties = new IngestProperties();
+        ingestProperties.getJournal().setEnabled(true);
+        ingestProperties.getJournal().setPath(temporaryFolder.newFolder().toPath().resolve("ingest.journal").toString());
+        ingestProperties.getJournal().setSizeBytes(64 * 1024);
+        ingestProperties.getJournal().setDrainIntervalMs(10);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (ingestJournal != null) {
+            ingestJournal.stop();
+        }
+    }
+
+    @Test
+    public void shouldDrainAppendedDataEnvelopes() {
+        List<DataEnvelope> drained = new CopyOnWriteArrayList<>();
+        ingestJournal = new MappedIngestJournal(ingestProperties);
+        ingestJournal.start(drained::addAll);
+
+        assertThat(ingestJournal.append(createDataEnvelope("Test1"))).isTrue();
+        assertThat(ingestJournal.append(createDataEnvelope("Test2"))).isTrue();
+
+        await().atMost(5, SECONDS).until(() -> drained.size() == 2);
+        assertThat(drained.get(0).getDataHeader().getName()).isEqualTo("Test1");
+        assertThat(drained.get(1).getDataHeader().getName()).isEqualTo("Test2");
+        assertThat(drained.get(1).getDataHeader().getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(drained.get(1).getDataBody().getDataBody()).isEqualTo(DUMMY_DATA);
+    }
+
+    @Test
+    public void shouldReplayUndrainedDataEnvelopesAfterRestart() throws Exception {
+        ingestJournal = new MappedIngestJournal(ingestProperties);
+        ingestJournal.start(envelopes -> {
+            throw new IllegalStateException("DB unavailable");
+        });
+        ingestJournal.append(createDataEnvelope("Test1"));
+        ingestJournal.append(createDataEnvelope("Test2"));
+        ingestJournal.stop();
+
+        List<DataEnvelope> drained = new CopyOnWriteArrayList<>();
+        ingestJournal = new MappedIngestJournal(ingestProperties);
+        ingestJournal.start(drained::addAll);
+
+        await().atMost(5, SECONDS).until(() -> drained.size() == 2);
+        assertThat(drained.get(0).getDataHeader().getName()).isEqualTo("Test1");
+        assertThat(drained.get(1).getDataHeader().getName()).isEqualTo("Test2");
+    }
+
+    @Test
+    public void shouldRejectAppendWhenJournalFull() {
+        ingestProperties.getJournal().setSizeBytes(128);
+        ingestJournal = new MappedIngestJournal(ingestProperties);
+        ingestJournal.start(envelopes -> {
+            throw new IllegalStateException("DB unavailable");
+        });
+
+        assertThat(ingestJournal.append(createDataEnvelope("Test1"))).isTrue();
+        assertThat(ingestJournal.append(createDataEnvelope("Test2"))).isFalse();
+    }
+
+    private static DataEnvelope createDataEnvelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA));
+    }
+}
@@ -0,0 +1,113 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.DataLakeProperties;
+import com.db.dataplatform.techtest.server.component.DataLakeDispatcher;
+import com.db.dataplatform.techtest.server.component.impl.ScheduledDataLakeOutboxRelay;
+import com.db.dataplatform.techtest.server.persistence.model.DataLakeOutboxEntity;
+import com.db.dataplatform.techtest.server.service.DataLakeOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ScheduledDataLakeOutboxRelayTests {
+
+    private static final Instant NOW = Instant.parse("2020-07-01T10:00:00Z");
+
+    @Mock
+    private DataLakeOutboxService dataLakeOutboxServiceMock;
+
+    @Mock
+    private DataLakeDispatcher dataLakeDispatcherMock;
+
+    private DataLakeProperties dataLakeProperties;
+    private ScheduledDataLakeOutboxRelay outboxRelay;
+
+    @Before
+    public void setup() {
+        dataLakeProperties = new DataLakeProperties();
+        dataLakeProperties.getOutbox().setFailureThreshold(2);
+
+        outboxRelay = new ScheduledDataLakeOutboxRelay(dataLakeProperties, dataLakeOutboxServiceMock, dataLakeDispatcherMock,
+                new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void shouldMarkDeliveredPayloads() {
+        when(dataLakeOutboxServiceMock.findPending(NOW, 500)).thenReturn(Arrays.asList(outboxEntity(1L, "a"), outboxEntity(2L, "b")));
+        when(dataLakeDispatcherMock.submit(any(String.class))).thenReturn(CompletableFuture.completedFuture(HttpStatus.OK));
+
+        int delivered = outboxRelay.relay();
+
+        assertThat(delivered).isEqualTo(2);
+        verify(dataLakeOutboxServiceMock, times(1)).markDelivered(Arrays.asList(1L, 2L), NOW);
+        verify(dataLakeOutboxServiceMock, never()).saveRetries(anyList());
+    }
+
+    @Test
+    public void shouldBackOffFailedPayloads() {
+        DataLakeOutboxEntity delivered = outboxEntity(1L, "a");
+        DataLakeOutboxEntity failed = outboxEntity(2L, "b");
+        failed.setAttempts(2);
+        when(dataLakeOutboxServiceMock.findPending(NOW, 500)).thenReturn(Arrays.asList(delivered, failed));
+        when(dataLakeDispatcherMock.submit("a")).thenReturn(CompletableFuture.completedFuture(HttpStatus.OK));
+        when(dataLakeDispatcherMock.submit("b")).thenReturn(failedDelivery());
+
+        outboxRelay.relay();
+
+        verify(dataLakeOutboxServiceMock, times(1)).markDelivered(Collections.singletonList(1L), NOW);
+        verify(dataLakeOutboxServiceMock, times(1)).saveRetries(Collections.singletonList(failed));
+        assertThat(failed.getAttempts()).isEqualTo(3);
+        assertThat(failed.getNextAttemptTimestamp()).isEqualTo(NOW.plusMillis(4000));
+    }
+
+    @Test
+    public void shouldOpenCircuitAfterConsecutiveFailedRounds() {
+        when(dataLakeOutboxServiceMock.findPending(eq(NOW), anyInt())).thenReturn(Collections.singletonList(outboxEntity(1L, "a")));
+        when(dataLakeDispatcherMock.submit("a")).thenReturn(failedDelivery());
+
+        outboxRelay.relay();
+        assertThat(outboxRelay.isCircuitOpen()).isFalse();
+        outboxRelay.relay();
+        assertThat(outboxRelay.isCircuitOpen()).isTrue();
+
+        assertThat(outboxRelay.relay()).isEqualTo(0);
+        verify(dataLakeOutboxServiceMock, times(2)).findPending(eq(NOW), anyInt());
+    }
+
+    private static DataLakeOutboxEntity outboxEntity(Long outboxId, String payload) {
+        DataLakeOutboxEntity outboxEntity = new DataLakeOutboxEntity();
+        outboxEntity.setOutboxId(outboxId);
+        outboxEntity.setPayload(payload);
+        return outboxEntity;
+    }
+
+    private static CompletableFuture<HttpStatus> failedDelivery() {
+        CompletableFuture<HttpStatus> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new HttpServerErrorException(HttpStatus.GATEWAY_TIMEOUT));
+        return failed;
+    }
+}
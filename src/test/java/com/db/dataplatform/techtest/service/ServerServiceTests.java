@@ -1,25 +1,56 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.QueryCacheProperties;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateRequest;
+import com.db.dataplatform.techtest.server.api.model.BulkUpdateResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
-import com.db.dataplatform.techtest.server.mapper.ServerMapperConfiguration;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.component.BlockTypeStatistics;
+import com.db.dataplatform.techtest.server.component.ChangeFeed;
+import com.db.dataplatform.techtest.server.component.DuplicateDetector;
+import com.db.dataplatform.techtest.server.component.IngestDeadLetters;
+import com.db.dataplatform.techtest.server.component.IngestJournal;
 import com.db.dataplatform.techtest.server.component.Server;
 import com.db.dataplatform.techtest.server.component.impl.ServerImpl;
+import com.db.dataplatform.techtest.server.component.impl.TtlQueryResultCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServerServiceTests {
@@ -27,7 +58,25 @@ public class ServerServiceTests {
     @Mock
     private DataBodyService dataBodyServiceImplMock;
 
-    private ModelMapper modelMapper;
+    @Mock
+    private DataHeaderService dataHeaderServiceImplMock;
+
+    @Mock
+    private IngestJournal ingestJournalMock;
+
+    @Mock
+    private IngestDeadLetters ingestDeadLettersMock;
+
+    @Mock
+    private DuplicateDetector duplicateDetectorMock;
+
+    @Mock
+    private BlockTypeStatistics blockTypeStatisticsMock;
+
+    @Mock
+    private ChangeFeed changeFeedMock;
+
+    private DataEnvelopeMapper dataEnvelopeMapper;
 
     private DataBodyEntity expectedDataBodyEntity;
     private DataEnvelope testDataEnvelope;
@@ -36,14 +85,13 @@ public class ServerServiceTests {
 
     @Before
     public void setup() {
-        ServerMapperConfiguration serverMapperConfiguration = new ServerMapperConfiguration();
-        modelMapper = serverMapperConfiguration.createModelMapperBean();
+        dataEnvelopeMapper = new DataEnvelopeMapper();
 
         testDataEnvelope = createTestDataEnvelopeApiObject();
-        expectedDataBodyEntity = modelMapper.map(testDataEnvelope.getDataBody(), DataBodyEntity.class);
-        expectedDataBodyEntity.setDataHeaderEntity(modelMapper.map(testDataEnvelope.getDataHeader(), DataHeaderEntity.class));
+        expectedDataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(testDataEnvelope);
 
-        server = new ServerImpl(dataBodyServiceImplMock, modelMapper);
+        server = new ServerImpl(dataBodyServiceImplMock, dataHeaderServiceImplMock, dataEnvelopeMapper, ingestJournalMock, ingestDeadLettersMock, duplicateDetectorMock,
+                new TtlQueryResultCache(new QueryCacheProperties(), new SimpleMeterRegistry()), blockTypeStatisticsMock, changeFeedMock);
     }
 
     @Test
@@ -54,4 +102,395 @@ public class ServerServiceTests {
         assertThat(success).isTrue();
         //verify(dataBodyServiceImplMock, times(1)).saveDataBody(eq(expectedDataBodyEntity));
     }
+
+    @Test
+    public void shouldSaveOnlyDataEnvelopesWithValidChecksumInBatch() {
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        List<ChecksummedDataEnvelope> batch = Arrays.asList(
+                new ChecksummedDataEnvelope(testDataEnvelope, md5),
+                new ChecksummedDataEnvelope(testDataEnvelope, "invalid"));
+
+        List<PushDataResult> results = server.saveDataEnvelopes(batch);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).isChecksumPass()).isTrue();
+        assertThat(results.get(1).isChecksumPass()).isFalse();
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(argThat(dataBodies -> dataBodies.size() == 1));
+    }
+
+    @Test
+    public void shouldSaveDataEnvelopeRepeatedInBatchOnce() {
+        DataEnvelope first = new DataEnvelope("Repeated", BlockTypeEnum.BLOCKTYPEA, "body1");
+        DataEnvelope repeated = new DataEnvelope("Repeated", BlockTypeEnum.BLOCKTYPEA, "body1");
+
+        List<PushDataResult> results = server.saveDataEnvelopes(Arrays.asList(
+                new ChecksummedDataEnvelope(first, null),
+                new ChecksummedDataEnvelope(repeated, null)));
+
+        assertThat(results).extracting(PushDataResult::isNameConflict).containsExactly(false, false);
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(argThat(dataBodies -> dataBodies.size() == 1));
+        verify(duplicateDetectorMock, times(1)).record(eq("Repeated"), any());
+    }
+
+    @Test
+    public void shouldReportNameConflictsInBatchAndSaveTheRest() {
+        DataEnvelope stored = new DataEnvelope("Stored", BlockTypeEnum.BLOCKTYPEA, "body1");
+        DataEnvelope first = new DataEnvelope("New", BlockTypeEnum.BLOCKTYPEA, "body2");
+        DataEnvelope second = new DataEnvelope("New", BlockTypeEnum.BLOCKTYPEB, "body3");
+        when(dataHeaderServiceImplMock.getExistingNames(argThat(names -> names.contains("Stored"))))
+                .thenReturn(Collections.singletonList("Stored"));
+
+        List<PushDataResult> results = server.saveDataEnvelopes(Arrays.asList(
+                new ChecksummedDataEnvelope(stored, null),
+                new ChecksummedDataEnvelope(first, null),
+                new ChecksummedDataEnvelope(second, null)));
+
+        assertThat(results).extracting(PushDataResult::isNameConflict).containsExactly(true, false, true);
+        assertThat(results).extracting(PushDataResult::isChecksumPass).containsExactly(true, true, true);
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(argThat(dataBodies -> dataBodies.size() == 1
+                && "body2".equals(dataBodies.get(0).getDataBody())));
+    }
+
+    @Test
+    public void shouldJournalDataEnvelopeWhenJournalEnabled() {
+        when(ingestJournalMock.isEnabled()).thenReturn(true);
+        when(ingestJournalMock.append(testDataEnvelope)).thenReturn(true);
+
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        boolean success = server.saveDataEnvelope(testDataEnvelope, md5);
+
+        assertThat(success).isTrue();
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any(DataBodyEntity.class));
+        verify(duplicateDetectorMock, never()).record(any(), any());
+    }
+
+    @Test
+    public void shouldRejectStoredNameBeforeJournaling() {
+        String name = testDataEnvelope.getDataHeader().getName();
+        when(ingestJournalMock.isEnabled()).thenReturn(true);
+        when(dataHeaderServiceImplMock.getExistingNames(Collections.singletonList(name))).thenReturn(Collections.singletonList(name));
+
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        assertThatThrownBy(() -> server.saveDataEnvelope(testDataEnvelope, md5))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(ingestJournalMock, never()).append(any(DataEnvelope.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldDeadLetterJournaledDataEnvelopeRejectedByDb() {
+        when(ingestJournalMock.isEnabled()).thenReturn(true);
+        ArgumentCaptor<Consumer<List<DataEnvelope>>> sink = ArgumentCaptor.forClass(Consumer.class);
+        ((ServerImpl) server).startIngestJournal();
+        verify(ingestJournalMock).start(sink.capture());
+
+        DataEnvelope replayed = new DataEnvelope("Replayed", BlockTypeEnum.BLOCKTYPEA, "body1");
+        DataEnvelope conflicting = new DataEnvelope("Conflicting", BlockTypeEnum.BLOCKTYPEA, "body2");
+        doThrow(new DataIntegrityViolationException("unique")).when(dataBodyServiceImplMock).saveDataBodies(any());
+        doThrow(new DataIntegrityViolationException("unique")).when(dataBodyServiceImplMock).saveDataBody(any(DataBodyEntity.class));
+        when(dataBodyServiceImplMock.getDataBodyByBlockName("Replayed"))
+                .thenReturn(Collections.singletonList(dataEnvelopeMapper.toDataBodyEntity(replayed)));
+        when(dataBodyServiceImplMock.getDataBodyByBlockName("Conflicting")).thenReturn(Collections.emptyList());
+
+        sink.getValue().accept(Arrays.asList(replayed, conflicting));
+
+        verify(ingestDeadLettersMock, never()).reject(eq(replayed), any());
+        verify(ingestDeadLettersMock).reject(eq(conflicting), eq("unique"));
+        verify(duplicateDetectorMock, times(1)).record(eq("Replayed"), any());
+        verify(duplicateDetectorMock, never()).record(eq("Conflicting"), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRecordJournaledDataEnvelopeOnceStored() {
+        when(ingestJournalMock.isEnabled()).thenReturn(true);
+        ArgumentCaptor<Consumer<List<DataEnvelope>>> sink = ArgumentCaptor.forClass(Consumer.class);
+        ((ServerImpl) server).startIngestJournal();
+        verify(ingestJournalMock).start(sink.capture());
+
+        sink.getValue().accept(Collections.singletonList(testDataEnvelope));
+
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(any());
+        verify(duplicateDetectorMock, times(1)).record(eq(testDataEnvelope.getDataHeader().getName()),
+                eq(DigestUtils.md5(testDataEnvelope.getDataBody().getDataBody())));
+    }
+
+    @Test
+    public void shouldPersistDataEnvelopeWhenJournalFull() {
+        when(ingestJournalMock.isEnabled()).thenReturn(true);
+        when(ingestJournalMock.append(testDataEnvelope)).thenReturn(false);
+
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        boolean success = server.saveDataEnvelope(testDataEnvelope, md5);
+
+        assertThat(success).isTrue();
+        verify(dataBodyServiceImplMock, times(1)).saveDataBody(any(DataBodyEntity.class));
+    }
+
+    @Test
+    public void shouldNotPersistDuplicateDataEnvelope() {
+        String name = testDataEnvelope.getDataHeader().getName();
+        when(duplicateDetectorMock.isDuplicate(eq(name), any(byte[].class))).thenReturn(true);
+
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        boolean success = server.saveDataEnvelope(testDataEnvelope, md5);
+
+        assertThat(success).isTrue();
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any(DataBodyEntity.class));
+    }
+
+    @Test
+    public void shouldRecordPersistedDataEnvelope() {
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        server.saveDataEnvelope(testDataEnvelope, md5);
+
+        verify(duplicateDetectorMock, times(1)).record(eq(testDataEnvelope.getDataHeader().getName()), eq(DigestUtils.md5(testDataEnvelope.getDataBody().getDataBody())));
+    }
+
+    @Test
+    public void shouldCountPersistedDataEnvelopeInStatistics() {
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        server.saveDataEnvelope(testDataEnvelope, md5);
+
+        verify(blockTypeStatisticsMock, times(1)).recordSaved(BlockTypeEnum.BLOCKTYPEA, testDataEnvelope.getDataBody().getDataBody().length());
+    }
+
+    @Test
+    public void shouldMoveUpdatedDataBlockInStatistics() {
+        when(dataBodyServiceImplMock.getDataBodyByBlockName(testDataEnvelope.getDataHeader().getName())).thenReturn(Arrays.asList(dataBodyEntity(1L)));
+
+        server.updateDataBlockType(testDataEnvelope.getDataHeader().getName(), BlockTypeEnum.BLOCKTYPEB.name());
+
+        verify(blockTypeStatisticsMock, times(1)).recordMoved(BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB, 1, testDataEnvelope.getDataBody().getDataBody().length());
+    }
+
+    @Test
+    public void shouldPublishSavedDataEnvelopeToSubscribers() {
+        when(changeFeedMock.hasSubscribers(BlockTypeEnum.BLOCKTYPEA)).thenReturn(true);
+
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        server.saveDataEnvelope(testDataEnvelope, md5);
+
+        verify(changeFeedMock, times(1)).publishSaved(argThat(envelope ->
+                envelope.getDataHeader().getName().equals(testDataEnvelope.getDataHeader().getName())
+                        && envelope.getDataHeader().getBlockType() == BlockTypeEnum.BLOCKTYPEA));
+    }
+
+    @Test
+    public void shouldNotPublishSavedDataEnvelopeWithoutSubscribers() {
+        String md5 = DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody());
+        server.saveDataEnvelope(testDataEnvelope, md5);
+
+        verify(changeFeedMock, never()).publishSaved(any(DataEnvelope.class));
+    }
+
+    @Test
+    public void shouldPublishReclassifiedDataEnvelope() {
+        when(dataBodyServiceImplMock.getDataBodyByBlockName(testDataEnvelope.getDataHeader().getName())).thenReturn(Arrays.asList(dataBodyEntity(1L)));
+
+        server.updateDataBlockType(testDataEnvelope.getDataHeader().getName(), BlockTypeEnum.BLOCKTYPEB.name());
+
+        verify(changeFeedMock, times(1)).publishReclassified(argThat(envelope -> envelope.getDataHeader().getBlockType() == BlockTypeEnum.BLOCKTYPEB));
+    }
+
+    @Test
+    public void shouldPublishBulkReclassifiedDataEnvelopesToSubscribers() {
+        List<String> names = Arrays.asList("name", "alreadyB");
+        List<DataEnvelope> moving = Arrays.asList(new DataEnvelope("name", BlockTypeEnum.BLOCKTYPEA, "body"));
+        when(changeFeedMock.hasSubscribers(BlockTypeEnum.BLOCKTYPEB)).thenReturn(true);
+        when(dataHeaderServiceImplMock.updateBlockTypeByNames(any(), eq(BlockTypeEnum.BLOCKTYPEA), eq(BlockTypeEnum.BLOCKTYPEB))).thenReturn(1);
+        when(dataBodyServiceImplMock.getDataEnvelopesByNames(names, BlockTypeEnum.BLOCKTYPEA)).thenReturn(moving);
+
+        server.updateDataBlockTypes(new BulkUpdateRequest(names, null, null, BlockTypeEnum.BLOCKTYPEB));
+
+        verify(changeFeedMock, times(1)).publishReclassified(argThat(envelope -> "name".equals(envelope.getDataHeader().getName())
+                && envelope.getDataHeader().getBlockType() == BlockTypeEnum.BLOCKTYPEB));
+        verify(dataBodyServiceImplMock, never()).getDataEnvelopesByNames(any(), eq(BlockTypeEnum.BLOCKTYPEB));
+    }
+
+    @Test
+    public void shouldReturnPageWithNextCursorWhenMoreDataExists() {
+        when(dataBodyServiceImplMock.getDataBodyPageByBlockType(BlockTypeEnum.BLOCKTYPEA, 10L, 3))
+                .thenReturn(Arrays.asList(dataBodyEntity(11L), dataBodyEntity(12L), dataBodyEntity(13L)));
+
+        DataEnvelopePage page = server.getDataEnvelopePage(BlockTypeEnum.BLOCKTYPEA.name(), 2, 10L);
+
+        assertThat(page.getDataEnvelopes()).hasSize(2);
+        assertThat(page.getNextCursor()).isEqualTo(12L);
+    }
+
+    @Test
+    public void shouldReturnLastPageWithoutNextCursor() {
+        when(dataBodyServiceImplMock.getDataBodyPageByBlockType(BlockTypeEnum.BLOCKTYPEA, 0L, 3))
+                .thenReturn(Arrays.asList(dataBodyEntity(1L), dataBodyEntity(2L)));
+
+        DataEnvelopePage page = server.getDataEnvelopePage(BlockTypeEnum.BLOCKTYPEA.name(), 2, null);
+
+        assertThat(page.getDataEnvelopes()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void shouldReturnPageOfTimeRange() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        Instant afterTimestamp = Instant.parse("2020-01-01T10:00:00Z");
+        DataBodyEntity first = dataBodyEntity(4L);
+        first.setCreatedTimestamp(afterTimestamp.plusSeconds(1));
+        DataBodyEntity second = dataBodyEntity(3L);
+        second.setCreatedTimestamp(afterTimestamp.plusSeconds(2));
+        when(dataBodyServiceImplMock.getDataBodyPageByCreatedTimestamp(from, to, null, afterTimestamp, 5L, 2))
+                .thenReturn(Arrays.asList(first, second));
+
+        DataEnvelopePage page = server.getDataEnvelopePage(from, to, null, 1, afterTimestamp, 5L);
+
+        assertThat(page.getDataEnvelopes()).hasSize(1);
+        assertThat(page.getNextCursor()).isEqualTo(4L);
+        assertThat(page.getNextCursorTimestamp()).isEqualTo(afterTimestamp.plusSeconds(1));
+    }
+
+    @Test
+    public void shouldStartTimeRangeAtFromWithoutCursor() {
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-01-02T00:00:00Z");
+        when(dataBodyServiceImplMock.getDataBodyPageByCreatedTimestamp(from, to, BlockTypeEnum.BLOCKTYPEA, from, 0L, 11))
+                .thenReturn(Collections.singletonList(dataBodyEntity(1L)));
+
+        DataEnvelopePage page = server.getDataEnvelopePage(from, to, BlockTypeEnum.BLOCKTYPEA, 10, null, null);
+
+        assertThat(page.getDataEnvelopes()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getNextCursorTimestamp()).isNull();
+    }
+
+    @Test
+    public void shouldChangeETagOnlyWhenBlockTypeIsWritten() {
+        String eTagA = server.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEA.name());
+        String eTagB = server.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEB.name());
+
+        server.saveDataEnvelope(testDataEnvelope, DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody()));
+
+        assertThat(server.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEA.name())).isNotEqualTo(eTagA).startsWith("W/\"").endsWith("\"");
+        assertThat(server.getDataEnvelopeETag(BlockTypeEnum.BLOCKTYPEB.name())).isEqualTo(eTagB);
+        assertThat(server.getDataEnvelopeETag("BLOCKTYPEX")).isNull();
+    }
+
+    @Test
+    public void shouldServeRepeatedQueryFromCache() {
+        when(dataBodyServiceImplMock.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Arrays.asList(testDataEnvelope));
+
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+        List<DataEnvelope> dataEnvelopes = server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+
+        assertThat(dataEnvelopes).hasSize(1);
+        verify(dataBodyServiceImplMock, times(1)).getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldQueryAgainAfterSaveOfSameBlockType() {
+        when(dataBodyServiceImplMock.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Arrays.asList(testDataEnvelope));
+
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+        server.saveDataEnvelope(testDataEnvelope, DigestUtils.md5Hex(testDataEnvelope.getDataBody().getDataBody()));
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+
+        verify(dataBodyServiceImplMock, times(2)).getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldQueryOldAndNewBlockTypeAgainAfterUpdate() {
+        when(dataBodyServiceImplMock.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Arrays.asList(testDataEnvelope));
+        when(dataBodyServiceImplMock.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEB)).thenReturn(new ArrayList<>());
+        when(dataBodyServiceImplMock.getDataBodyByBlockName(testDataEnvelope.getDataHeader().getName())).thenReturn(Arrays.asList(dataBodyEntity(1L)));
+
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEB.name());
+        server.updateDataBlockType(testDataEnvelope.getDataHeader().getName(), BlockTypeEnum.BLOCKTYPEB.name());
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name());
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEB.name());
+
+        verify(dataBodyServiceImplMock, times(2)).getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEA);
+        verify(dataBodyServiceImplMock, times(2)).getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEB);
+    }
+
+    @Test
+    public void shouldBulkUpdateNamesInChunksPerPreviousBlockType() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ServerImpl.BULK_UPDATE_CHUNK_SIZE + 1; i++) {
+            names.add("name" + i);
+        }
+        when(dataHeaderServiceImplMock.updateBlockTypeByNames(any(), eq(BlockTypeEnum.BLOCKTYPEA), eq(BlockTypeEnum.BLOCKTYPEB)))
+                .thenReturn(ServerImpl.BULK_UPDATE_CHUNK_SIZE, 1);
+
+        BulkUpdateResult result = server.updateDataBlockTypes(new BulkUpdateRequest(names, null, null, BlockTypeEnum.BLOCKTYPEB));
+
+        assertThat(result.getUpdated()).isEqualTo(ServerImpl.BULK_UPDATE_CHUNK_SIZE + 1);
+        assertThat(result.getUpdatedByPreviousBlockType()).containsEntry(BlockTypeEnum.BLOCKTYPEA, ServerImpl.BULK_UPDATE_CHUNK_SIZE + 1);
+        assertThat(result.getChunks()).isEqualTo(2);
+        verify(dataHeaderServiceImplMock, never()).updateBlockTypeByNames(any(), eq(BlockTypeEnum.BLOCKTYPEB), any());
+    }
+
+    @Test
+    public void shouldBulkUpdateBlockTypeInChunksOfIds() {
+        Instant createdBefore = Instant.parse("2020-01-01T00:00:00Z");
+        List<Long> fullChunk = new ArrayList<>();
+        for (long id = 1; id <= ServerImpl.BULK_UPDATE_CHUNK_SIZE; id++) {
+            fullChunk.add(id);
+        }
+        when(dataHeaderServiceImplMock.getIdsByBlockTypeCreatedBefore(BlockTypeEnum.BLOCKTYPEA, createdBefore, 0L, ServerImpl.BULK_UPDATE_CHUNK_SIZE))
+                .thenReturn(fullChunk);
+        when(dataHeaderServiceImplMock.getIdsByBlockTypeCreatedBefore(BlockTypeEnum.BLOCKTYPEA, createdBefore, ServerImpl.BULK_UPDATE_CHUNK_SIZE, ServerImpl.BULK_UPDATE_CHUNK_SIZE))
+                .thenReturn(Arrays.asList(2000L));
+        when(dataHeaderServiceImplMock.updateBlockTypeByIds(any(), eq(BlockTypeEnum.BLOCKTYPEA), eq(BlockTypeEnum.BLOCKTYPEB)))
+                .thenReturn(ServerImpl.BULK_UPDATE_CHUNK_SIZE, 1);
+
+        BulkUpdateResult result = server.updateDataBlockTypes(new BulkUpdateRequest(null, BlockTypeEnum.BLOCKTYPEA, createdBefore, BlockTypeEnum.BLOCKTYPEB));
+
+        assertThat(result.getUpdated()).isEqualTo(ServerImpl.BULK_UPDATE_CHUNK_SIZE + 1);
+        assertThat(result.getChunks()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldQueryAgainAfterBulkUpdate() {
+        when(dataBodyServiceImplMock.getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEB)).thenReturn(new ArrayList<>());
+        when(dataHeaderServiceImplMock.updateBlockTypeByNames(any(), eq(BlockTypeEnum.BLOCKTYPEA), eq(BlockTypeEnum.BLOCKTYPEB))).thenReturn(1);
+
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEB.name());
+        server.updateDataBlockTypes(new BulkUpdateRequest(Arrays.asList("name"), null, null, BlockTypeEnum.BLOCKTYPEB));
+        server.getDataEnvelope(BlockTypeEnum.BLOCKTYPEB.name());
+
+        verify(dataBodyServiceImplMock, times(2)).getDataEnvelopesByBlockType(BlockTypeEnum.BLOCKTYPEB);
+    }
+
+    @Test
+    public void shouldStreamDataEnvelopesOfBlockType() {
+        doAnswer(invocation -> {
+            Consumer<DataBodyEntity> consumer = invocation.getArgument(1);
+            consumer.accept(dataBodyEntity(1L));
+            return null;
+        }).when(dataBodyServiceImplMock).forEachDataBodyByBlockType(eq(BlockTypeEnum.BLOCKTYPEA), any());
+
+        List<DataEnvelope> streamed = new ArrayList<>();
+        server.streamDataEnvelope(BlockTypeEnum.BLOCKTYPEA.name(), streamed::add);
+
+        assertThat(streamed).hasSize(1);
+        assertThat(streamed.get(0).getDataHeader().getName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+        assertThat(streamed.get(0).getDataBody().getDataBody()).isEqualTo(testDataEnvelope.getDataBody().getDataBody());
+    }
+
+    @Test
+    public void shouldStreamNothingForUnknownBlockType() {
+        List<DataEnvelope> streamed = new ArrayList<>();
+        server.streamDataEnvelope("BLOCKTYPEX", streamed::add);
+
+        assertThat(streamed).isEmpty();
+        verify(dataBodyServiceImplMock, never()).forEachDataBodyByBlockType(any(), any());
+    }
+
+    private DataBodyEntity dataBodyEntity(Long dataStoreId) {
+        DataBodyEntity dataBodyEntity = dataEnvelopeMapper.toDataBodyEntity(testDataEnvelope);
+        dataBodyEntity.setDataStoreId(dataStoreId);
+        return dataBodyEntity;
+    }
 }
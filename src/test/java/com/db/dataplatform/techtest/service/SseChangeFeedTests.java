@@ -0,0 +1,194 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.AsyncConfiguration;
+import com.db.dataplatform.techtest.server.AsyncProperties;
+import com.db.dataplatform.techtest.server.ChangeFeedProperties;
+import com.db.dataplatform.techtest.server.api.controller.ServerController;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StreamIngester;
+import com.db.dataplatform.techtest.server.component.impl.SseChangeFeed;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SseChangeFeedTests {
+
+    private static final String URI_SUBSCRIBE = "/dataserver/subscribe/BLOCKTYPEA";
+
+    @Mock
+    private Server serverMock;
+
+    @Mock
+    private StreamIngester streamIngesterMock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor changeFeedExecutor;
+    private SseChangeFeed changeFeed;
+    private MockMvc mockMvc;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        ChangeFeedProperties changeFeedProperties = new ChangeFeedProperties();
+        changeFeedProperties.setBufferSize(2);
+        changeFeedProperties.setHistorySize(2);
+        AsyncProperties asyncProperties = new AsyncProperties();
+        asyncProperties.setChangeFeed(new AsyncProperties.Pool(1, 1, 1));
+
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        changeFeedExecutor = new AsyncConfiguration(asyncProperties, beanFactory.getBeanProvider(MeterRegistry.class)).changeFeedExecutor();
+        changeFeedExecutor.initialize();
+        changeFeed = new SseChangeFeed(changeFeedProperties, changeFeedExecutor, meterRegistry);
+
+        when(serverMock.subscribeDataEnvelope(any(), any()))
+                .thenAnswer(invocation -> changeFeed.subscribe(invocation.getArgument(0), invocation.getArgument(1)));
+        mockMvc = standaloneSetup(new ServerController(serverMock, streamIngesterMock, Jackson2ObjectMapperBuilder.json().build())).build();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        changeFeed.stop();
+        changeFeedExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldPushPublishedDataEnvelopesWithIncreasingEventIds() throws Exception {
+        MvcResult mvcResult = subscribe(null);
+
+        changeFeed.publishSaved(new DataEnvelope("saved", BlockTypeEnum.BLOCKTYPEA, "body"));
+        changeFeed.publishReclassified(new DataEnvelope("moved", BlockTypeEnum.BLOCKTYPEA, "body"));
+        changeFeed.publishSaved(new DataEnvelope("other", BlockTypeEnum.BLOCKTYPEB, "body"));
+
+        awaitContent(mvcResult, "\"moved\"");
+        String content = mvcResult.getResponse().getContentAsString();
+        assertThat(content).contains("\nevent:" + SseChangeFeed.EVENT_SAVED + "\ndata:");
+        assertThat(content).contains("\nevent:" + SseChangeFeed.EVENT_RECLASSIFIED + "\ndata:");
+        assertThat(content).doesNotContain("\"other\"");
+        assertThat(eventIds(content)).hasSize(2).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void shouldReplayEventsAfterLastEventId() throws Exception {
+        MvcResult first = subscribe(null);
+        changeFeed.publishSaved(new DataEnvelope("name1", BlockTypeEnum.BLOCKTYPEA, "body"));
+        awaitContent(first, "\"name1\"");
+        changeFeed.publishSaved(new DataEnvelope("name2", BlockTypeEnum.BLOCKTYPEA, "body"));
+        awaitContent(first, "\"name2\"");
+        long lastEventId = eventIds(first.getResponse().getContentAsString()).get(0);
+
+        MvcResult resumed = subscribe(lastEventId);
+        awaitContent(resumed, "\"name2\"");
+        changeFeed.publishSaved(new DataEnvelope("name3", BlockTypeEnum.BLOCKTYPEA, "body"));
+
+        awaitContent(resumed, "\"name3\"");
+        String content = resumed.getResponse().getContentAsString();
+        assertThat(content).doesNotContain("\"name1\"");
+        assertThat(content.indexOf("\"name2\"")).isEqualTo(content.lastIndexOf("\"name2\""));
+        assertThat(content.indexOf("\"name2\"")).isLessThan(content.indexOf("\"name3\""));
+    }
+
+    @Test
+    public void shouldResetSubscriberResumingFromEventNoLongerKept() throws Exception {
+        MvcResult mvcResult = subscribe(5L);
+
+        awaitContent(mvcResult, "\nevent:" + SseChangeFeed.EVENT_RESET + "\ndata:5\n");
+    }
+
+    @Test
+    public void shouldDisconnectSlowSubscriber() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        changeFeedExecutor.execute(() -> {
+            blocking.countDown();
+            awaitRelease();
+        });
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The replay waits in the queue behind the busy sender thread.
+        subscribe(null);
+        for (int i = 0; i < 3; i++) {
+            changeFeed.publishSaved(new DataEnvelope("name" + i, BlockTypeEnum.BLOCKTYPEA, "body"));
+        }
+        release.countDown();
+
+        assertThat(meterRegistry.get(SseChangeFeed.METRIC_SUBSCRIBERS).gauge().value()).isEqualTo(0);
+        assertThat(meterRegistry.counter(SseChangeFeed.METRIC_EVICTIONS).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDisconnectSubscriberWhenSenderThreadsAreBusy() throws Exception {
+        subscribe(null);
+        await().atMost(5, SECONDS).until(() -> changeFeedExecutor.getActiveCount() == 0);
+        CountDownLatch blocking = new CountDownLatch(1);
+        changeFeedExecutor.execute(() -> {
+            blocking.countDown();
+            awaitRelease();
+        });
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+        changeFeedExecutor.execute(this::awaitRelease);
+
+        changeFeed.publishSaved(new DataEnvelope("name", BlockTypeEnum.BLOCKTYPEA, "body"));
+
+        assertThat(meterRegistry.get(SseChangeFeed.METRIC_SUBSCRIBERS).gauge().value()).isEqualTo(0);
+        assertThat(meterRegistry.counter(SseChangeFeed.METRIC_EVICTIONS).count()).isEqualTo(1);
+    }
+
+    private MvcResult subscribe(Long lastEventId) throws Exception {
+        return mockMvc.perform(lastEventId == null
+                        ? get(URI_SUBSCRIBE)
+                        : get(URI_SUBSCRIBE).header("Last-Event-ID", lastEventId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitContent(MvcResult mvcResult, String expected) {
+        await().atMost(5, SECONDS).until(() -> mvcResult.getResponse().getContentAsString().contains(expected));
+    }
+
+    private static List<Long> eventIds(String content) {
+        List<Long> ids = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (line.startsWith("id:")) {
+                ids.add(Long.parseLong(line.substring("id:".length())));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,102 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.IngestProperties;
+import com.db.dataplatform.techtest.server.api.model.ChecksummedDataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.StreamIngestResult;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StreamIngester;
+import com.db.dataplatform.techtest.server.component.impl.StreamIngesterImpl;
+import com.db.dataplatform.techtest.server.exception.MalformedDataStreamException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObjectWithEmptyName;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StreamIngesterTests {
+
+    @Mock
+    private Server serverMock;
+
+    private ObjectMapper objectMapper;
+    private IngestProperties ingestProperties;
+    private StreamIngester streamIngester;
+
+    @Before
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        ingestProperties = new IngestProperties();
+        ingestProperties.setStreamChunkSize(1);
+
+        streamIngester = new StreamIngesterImpl(serverMock, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), ingestProperties);
+    }
+
+    @Test
+    public void shouldPersistStreamedDataEnvelopesInChunks() throws Exception {
+        DataEnvelope testDataEnvelope = createTestDataEnvelopeApiObject();
+        when(serverMock.saveDataEnvelopes(anyList()))
+                .thenReturn(Collections.singletonList(new PushDataResult(testDataEnvelope.getDataHeader().getName(), true, false)));
+
+        String line = toJsonLine(testDataEnvelope);
+        StreamIngestResult result = streamIngester.ingest(toStream(line + line));
+
+        assertThat(result.getReceived()).isEqualTo(2);
+        assertThat(result.getPersisted()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(0);
+        verify(serverMock, times(2)).saveDataEnvelopes(anyList());
+    }
+
+    @Test
+    public void shouldRejectInvalidStreamedDataEnvelopes() throws Exception {
+        StreamIngestResult result = streamIngester.ingest(toStream(toJsonLine(createTestDataEnvelopeApiObjectWithEmptyName())));
+
+        assertThat(result.getReceived()).isEqualTo(1);
+        assertThat(result.getPersisted()).isEqualTo(0);
+        assertThat(result.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSaveDataEnvelopesReadBeforeMalformedRecord() throws Exception {
+        ingestProperties.setStreamChunkSize(10);
+        DataEnvelope testDataEnvelope = createTestDataEnvelopeApiObject();
+        when(serverMock.saveDataEnvelopes(anyList()))
+                .thenReturn(Collections.singletonList(new PushDataResult(testDataEnvelope.getDataHeader().getName(), true, false)));
+
+        assertThatThrownBy(() -> streamIngester.ingest(toStream(toJsonLine(testDataEnvelope) + "{\"dataEnvelope\": [\n")))
+                .isInstanceOf(MalformedDataStreamException.class)
+                .hasMessageContaining("1 data blocks before it have been saved");
+        verify(serverMock, times(1)).saveDataEnvelopes(argThat(chunk -> chunk.size() == 1));
+    }
+
+    private String toJsonLine(DataEnvelope dataEnvelope) throws Exception {
+        String md5 = DigestUtils.md5Hex(dataEnvelope.getDataBody().getDataBody());
+        return objectMapper.writeValueAsString(new ChecksummedDataEnvelope(dataEnvelope, md5)) + "\n";
+    }
+
+    private static ByteArrayInputStream toStream(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.api.model.BlockTypeStats;
+import com.db.dataplatform.techtest.server.component.impl.StripedBlockTypeStatistics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.engine.BlockTypeTotals;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StripedBlockTypeStatisticsTests {
+
+    @Mock
+    private DataBodyService dataBodyServiceImplMock;
+
+    private StripedBlockTypeStatistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = new StripedBlockTypeStatistics(dataBodyServiceImplMock,
+                Clock.fixed(Instant.parse("2020-01-01T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    public void shouldSeedFromDb() {
+        when(dataBodyServiceImplMock.getTotalsByBlockType()).thenReturn(Collections.singletonList(totals(BlockTypeEnum.BLOCKTYPEA, 3, 300)));
+
+        statistics.seed();
+        Map<BlockTypeEnum, BlockTypeStats> stats = statistics.getStats();
+
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEA).getCount()).isEqualTo(3);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEA).getDataBodyLength()).isEqualTo(300);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEB).getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountSavedDataBlocksAndIngestRate() {
+        for (int i = 0; i < 60; i++) {
+            statistics.recordSaved(BlockTypeEnum.BLOCKTYPEA, 10);
+        }
+        BlockTypeStats stats = statistics.getStats().get(BlockTypeEnum.BLOCKTYPEA);
+
+        assertThat(stats.getCount()).isEqualTo(60);
+        assertThat(stats.getDataBodyLength()).isEqualTo(600);
+        assertThat(stats.getIngestRatePerSecond()).containsEntry("1m", 1.0).containsEntry("5m", 0.2);
+    }
+
+    @Test
+    public void shouldMoveDataBlocksBetweenBlockTypes() {
+        statistics.recordSaved(BlockTypeEnum.BLOCKTYPEA, 10);
+        statistics.recordSaved(BlockTypeEnum.BLOCKTYPEA, 30);
+        statistics.recordMoved(BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB, 1, 10);
+
+        Map<BlockTypeEnum, BlockTypeStats> stats = statistics.getStats();
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEA).getCount()).isEqualTo(1);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEA).getDataBodyLength()).isEqualTo(30);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEB).getCount()).isEqualTo(1);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEB).getDataBodyLength()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldEstimateLengthOfBulkMovedDataBlocks() {
+        statistics.recordSaved(BlockTypeEnum.BLOCKTYPEA, 10);
+        statistics.recordSaved(BlockTypeEnum.BLOCKTYPEA, 30);
+        statistics.recordMoved(BlockTypeEnum.BLOCKTYPEA, BlockTypeEnum.BLOCKTYPEB, 2);
+
+        Map<BlockTypeEnum, BlockTypeStats> stats = statistics.getStats();
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEA).getCount()).isEqualTo(0);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEB).getCount()).isEqualTo(2);
+        assertThat(stats.get(BlockTypeEnum.BLOCKTYPEB).getDataBodyLength()).isEqualTo(40);
+    }
+
+    private static BlockTypeTotals totals(BlockTypeEnum blockType, long count, long dataBodyLength) {
+        return new BlockTypeTotals(blockType, count, dataBodyLength);
+    }
+}
@@ -0,0 +1,129 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.QueryCacheProperties;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.impl.TtlQueryResultCache;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TtlQueryResultCacheTests {
+
+    private long now;
+    private QueryCacheProperties queryCacheProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private TtlQueryResultCache cache;
+    private AtomicInteger loads;
+    private Function<BlockTypeEnum, List<DataEnvelope>> loader;
+
+    @Before
+    public void setup() {
+        queryCacheProperties = new QueryCacheProperties();
+        queryCacheProperties.setTtlMs(1_000);
+        queryCacheProperties.setMaxDataEnvelopes(2);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TtlQueryResultCache(queryCacheProperties, meterRegistry, new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now);
+            }
+        });
+
+        loads = new AtomicInteger();
+        loader = blockType -> {
+            loads.incrementAndGet();
+            return Collections.singletonList(createTestDataEnvelopeApiObject());
+        };
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsFromCache() {
+        List<DataEnvelope> first = cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        List<DataEnvelope> second = cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter(TtlQueryResultCache.METRIC_HITS).count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(TtlQueryResultCache.METRIC_MISSES).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReloadAfterTtl() {
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        now += 1_000;
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter(TtlQueryResultCache.METRIC_EVICTIONS, "cause", "expired").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReloadOnlyInvalidatedBlockType() {
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        cache.get(BlockTypeEnum.BLOCKTYPEB, loader);
+        cache.invalidate(BlockTypeEnum.BLOCKTYPEA);
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        cache.get(BlockTypeEnum.BLOCKTYPEB, loader);
+
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter(TtlQueryResultCache.METRIC_EVICTIONS, "cause", "invalidated").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheResultLoadedWhileInvalidated() {
+        cache.get(BlockTypeEnum.BLOCKTYPEA, blockType -> {
+            // A write of the block type commits while the stale result is being loaded.
+            cache.invalidate(blockType);
+            return loader.apply(blockType);
+        });
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldEvictOldestResultWhenFull() {
+        DataEnvelope dataEnvelope = createTestDataEnvelopeApiObject();
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        now += 10;
+        cache.get(BlockTypeEnum.BLOCKTYPEB, blockType -> Arrays.asList(dataEnvelope, dataEnvelope));
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.getCachedDataEnvelopes()).isEqualTo(1);
+        assertThat(meterRegistry.counter(TtlQueryResultCache.METRIC_EVICTIONS, "cause", "size").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldBypassCacheWhenDisabled() {
+        queryCacheProperties.setEnabled(false);
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+        cache.get(BlockTypeEnum.BLOCKTYPEA, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,31 @@
+package com.db.dataplatform.techtest.stats;
+
+import com.db.dataplatform.techtest.server.stats.SlidingWindowCounter;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlidingWindowCounterTests {
+
+    @Test
+    public void shouldSumEventsInWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        counter.add(1000, 2);
+        counter.add(1030, 3);
+        counter.add(1059, 4);
+
+        assertThat(counter.sum(1059, 60)).isEqualTo(9);
+        assertThat(counter.sum(1059, 30)).isEqualTo(7);
+        assertThat(counter.sum(1059, 1)).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldForgetSecondsLeavingTheRing() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        counter.add(1000, 5);
+        counter.add(1060, 1);
+
+        assertThat(counter.sum(1060, 60)).isEqualTo(1);
+        assertThat(counter.sum(1200, 60)).isEqualTo(0);
+    }
+}